@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A facade of the queries of {@link BaseDao} which can include the archive table of {@link TableArchiver}.</p>
+ * <p>The archive table is queried only when the archive is included, and after the table, so the archived rows
+ * are found with an extra query, and the queries without the archive are same as {@link BaseDao}.
+ * The queries by id skip the archive table for the ids found in the table, while the queries by the param bean
+ * always query both tables, as an archived row is deleted from the table in the same transaction.
+ * The queries use the connection of current thread.</p>
+ * <pre>{@code
+ * Test test = ArchiveDao.selectTableById(new Test().setId(1), true);
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class ArchiveDao {
+
+    /**
+     * Suffix of the archive table name.
+     *
+     * @since 2.7
+     */
+    public static final String ARCHIVE_SUFFIX = "_archive";
+
+    /**
+     * Get the archive table name of the bean.
+     *
+     * @param bean bean object
+     * @return the archive table name
+     * @since 2.7
+     */
+    public static String getArchiveTableName(BaseBean bean) {
+        return bean.tableName() + ARCHIVE_SUFFIX;
+    }
+
+    /**
+     * Query a bean by the given id, and query the archive table when not found and the archive is included.
+     *
+     * @param bean           bean object
+     * @param includeArchive true to include the archive table
+     * @param <T>            {@link BaseBean} type class
+     * @return the bean of query result
+     * @throws SQLException exception when query
+     * @see BaseDao#selectTableById(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> T selectTableById(T bean, boolean includeArchive) throws SQLException {
+        T result = BaseDao.selectTableById(bean);
+        if (result == null && includeArchive) {
+            result = BaseDao.executeSelectReturnBean("SELECT * FROM " + getArchiveTableName(bean) + " WHERE id = ?", List.of(bean.columnMap(false).get("id")), bean);
+        }
+        return result;
+    }
+
+    /**
+     * Query beans by the given id list, and query the ids not found in the archive table when the archive is included.
+     *
+     * @param bean           bean object
+     * @param idList         a list id of the beans to query
+     * @param includeArchive true to include the archive table
+     * @param <T>            {@link BaseBean} type class
+     * @return the bean list of query result, the archived beans are after the others
+     * @throws SQLException exception when query
+     * @see BaseDao#selectTableByIdList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByIdList(T bean, List<? extends Number> idList, boolean includeArchive) throws SQLException {
+        List<T> list = BaseDao.selectTableByIdList(bean, idList);
+        if (includeArchive && list.size() < idList.size()) {
+            Set<Long> foundSet = new HashSet<Long>();
+            for (T result : list) {
+                Object id = result.columnMap(false).get("id");
+                if (id instanceof Number) {
+                    foundSet.add(((Number) id).longValue());
+                }
+            }
+            List<Number> missingIdList = new ArrayList<Number>();
+            for (Number id : idList) {
+                if (!foundSet.contains(id.longValue())) {
+                    missingIdList.add(id);
+                }
+            }
+            if (!missingIdList.isEmpty()) {
+                list.addAll(BaseDao.executeSelectReturnList("SELECT * FROM " + getArchiveTableName(bean) + " WHERE id" + BaseDao.makeInStr(missingIdList), missingIdList, bean));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Query beans by the param bean, match all the not null properties equals, in the table and the archive table
+     * when the archive is included.
+     *
+     * @param bean           the param bean
+     * @param includeArchive true to include the archive table
+     * @param <T>            {@link BaseBean} type class
+     * @return all query results, the archived beans are after the others
+     * @throws SQLException exception when query
+     * @throws RuntimeException when the archive is included and the param bean has no not null property
+     * @see BaseDao#selectTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByBean(T bean, boolean includeArchive) throws SQLException {
+        if (!includeArchive) {
+            return BaseDao.selectTableByBean(bean);
+        }
+        Map<String, Object> columnMap = getParamColumnMap(bean);
+        List<T> list = BaseDao.selectTableByBean(bean);
+        List<Object> paramList = new ArrayList<Object>(columnMap.size());
+        String sql = "SELECT * FROM " + getArchiveTableName(bean) + " WHERE " + BaseDao.makeColumnParamSql(columnMap, paramList, " AND ");
+        list.addAll(BaseDao.executeSelectReturnList(sql, paramList, bean));
+        return list;
+    }
+
+    /**
+     * Count the rows by the param bean in the table and the archive table when the archive is included.
+     *
+     * @param bean           the param bean
+     * @param includeArchive true to include the archive table
+     * @param <T>            {@link BaseBean} type class
+     * @return amount of rows which match the param bean
+     * @throws SQLException exception when query
+     * @throws RuntimeException when the archive is included and the param bean has no not null property
+     * @see BaseDao#countTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int countTableByBean(T bean, boolean includeArchive) throws SQLException {
+        if (!includeArchive) {
+            return BaseDao.countTableByBean(bean);
+        }
+        Map<String, Object> columnMap = getParamColumnMap(bean);
+        int count = BaseDao.countTableByBean(bean);
+        List<Object> paramList = new ArrayList<Object>(columnMap.size());
+        String sql = "SELECT COUNT(1) FROM " + getArchiveTableName(bean) + " WHERE " + BaseDao.makeColumnParamSql(columnMap, paramList, " AND ");
+        Integer archiveCount = BaseDao.executeSelectReturnInteger(sql, paramList);
+        return count + (archiveCount == null ? 0 : archiveCount);
+    }
+
+    /**
+     * Get the not null columns of the param bean to query the archive table.
+     *
+     * @param bean the param bean
+     * @return the column map
+     * @throws RuntimeException when the param bean has no not null property
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getParamColumnMap(BaseBean bean) {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        if (columnMap.isEmpty()) {
+            throw new RuntimeException("param bean of table " + bean.tableName() + " must have not null property");
+        }
+        return columnMap;
+    }
+
+}
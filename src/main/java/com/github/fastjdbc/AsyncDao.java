@@ -0,0 +1,529 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>An asynchronous facade of {@link BaseDao}, every method returns a {@link CompletableFuture} object.</p>
+ * <p>Each call is a unit of work with its own connection: the connection is got from the given pool,
+ * committed and closed when the work finished, so the work is not in the transaction of the calling thread.</p>
+ * <p>The work runs on a dedicated executor, virtual threads are used when the runtime supports them, otherwise
+ * a fixed thread pool sized by the sum of all the datasource sizes is used. The concurrency of each datasource
+ * is limited by its maximum pool size, the work beyond it waits in the queue of the datasource before dispatched
+ * to the executor, so the waiting work holds neither a connection nor an executor thread, and a saturated
+ * datasource does not delay the work of the others.</p>
+ *
+ * @since 2.7
+ */
+public class AsyncDao {
+
+    /**
+     * The executor to run the work.
+     *
+     * @since 2.7
+     */
+    private static volatile ExecutorService EXECUTOR;
+
+    /**
+     * Concurrency limiter of each datasource, key is datasource object, value is {@link Lane} object
+     * with the maximum pool size of the datasource as max concurrency.
+     *
+     * @since 2.7
+     */
+    private static final Map<DataSource, Lane> LANE_MAP = new ConcurrentHashMap<DataSource, Lane>();
+
+    /**
+     * <p>Initialization method to use a custom executor instead of the default one.</p>
+     *
+     * @param executor the executor to run the work
+     * @since 2.7
+     */
+    public static synchronized void init(ExecutorService executor) {
+        if (executor == null) {
+            throw new RuntimeException("executor must not null");
+        }
+        EXECUTOR = executor;
+    }
+
+    /**
+     * Shutdown the executor, a new default executor will be created when called again.
+     *
+     * @since 2.7
+     */
+    public static synchronized void shutdown() {
+        if (EXECUTOR != null) {
+            EXECUTOR.shutdown();
+            EXECUTOR = null;
+        }
+    }
+
+    /**
+     * <p>Run a unit of work asynchronously with a connection of the given pool.</p>
+     * <p>This is the common way to call the customized methods of DAO class asynchronously, eg:</p>
+     * <pre>{@code
+     * CompletableFuture<String> future = AsyncDao.supplyAsync("slave", () -> TestDao.selectTestNameById(1));
+     * }</pre>
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param callable      the unit of work
+     * @param <R>           the result type
+     * @return future of the work result
+     * @see ConnectionPool#getConnection(String)
+     * @since 2.7
+     */
+    public static <R> CompletableFuture<R> supplyAsync(String slavePoolName, SqlCallable<R> callable) {
+        return supplyAsync(ConnectionPool.getDataSource(slavePoolName), slavePoolName != null, callable);
+    }
+
+    /**
+     * Run the unit of work asynchronously with a new connection of the given datasource.
+     *
+     * @param dataSource datasource object
+     * @param readOnly   true for a read connection, false for a write connection
+     * @param callable   the unit of work
+     * @param <R>        the result type
+     * @return future of the work result
+     * @since 2.7
+     */
+    static <R> CompletableFuture<R> supplyAsync(DataSource dataSource, boolean readOnly, SqlCallable<R> callable) {
+        CompletableFuture<R> future = new CompletableFuture<R>();
+        try {
+            execute(dataSource, () -> {
+                try {
+                    future.complete(ConnectionPool.callInConnection(dataSource, readOnly, callable));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }, future::completeExceptionally);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Insert the not null properties of bean asynchronously.
+     *
+     * @param bean bean to insert
+     * @param <T>  {@link BaseBean} type class
+     * @return future of count of insert rows
+     * @see BaseDao#insertIntoTable(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> insertIntoTable(T bean) {
+        return supplyAsync(null, () -> BaseDao.insertIntoTable(bean));
+    }
+
+    /**
+     * Insert the not null properties of bean asynchronously and return the generated primary key.
+     *
+     * @param bean bean to insert
+     * @param <T>  {@link BaseBean} type class
+     * @return future of generated primary key
+     * @see BaseDao#insertIntoTableReturnId(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> insertIntoTableReturnId(T bean) {
+        return supplyAsync(null, () -> BaseDao.insertIntoTableReturnId(bean));
+    }
+
+    /**
+     * Insert the not null properties of bean asynchronously and return the generated primary key of bigint type.
+     *
+     * @param bean bean to insert
+     * @param <T>  {@link BaseBean} type class
+     * @return future of generated primary key
+     * @see BaseDao#insertIntoTableReturnLongId(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Long> insertIntoTableReturnLongId(T bean) {
+        return supplyAsync(null, () -> BaseDao.insertIntoTableReturnLongId(bean));
+    }
+
+    /**
+     * Batch insert the properties of bean list asynchronously.
+     *
+     * @param list list of bean to insert
+     * @param <T>  {@link BaseBean} type class
+     * @return future of count of insert rows
+     * @see BaseDao#batchInsertIntoTable(List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> batchInsertIntoTable(List<T> list) {
+        return supplyAsync(null, () -> BaseDao.batchInsertIntoTable(list));
+    }
+
+    /**
+     * Update the properties of bean by the primary key of bean asynchronously.
+     *
+     * @param bean bean to update
+     * @param all  true to update all column of bean, false to update not null column of bean
+     * @param <T>  {@link BaseBean} type class
+     * @return future of count of updated rows
+     * @see BaseDao#updateTableById(BaseBean, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> updateTableById(T bean, boolean all) {
+        return supplyAsync(null, () -> BaseDao.updateTableById(bean, all));
+    }
+
+    /**
+     * Update the properties of bean by the gid of bean asynchronously.
+     *
+     * @param bean bean to update
+     * @param all  true to update all column of bean, false to update not null column of bean
+     * @param <T>  {@link BaseBean} type class
+     * @return future of count of updated rows
+     * @see BaseDao#updateTableByGid(BaseBean, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> updateTableByGid(T bean, boolean all) {
+        return supplyAsync(null, () -> BaseDao.updateTableByGid(bean, all));
+    }
+
+    /**
+     * Update the properties of bean by the given id list asynchronously.
+     *
+     * @param bean   bean to update
+     * @param idList a list id of the beans which will be updated
+     * @param all    true to update all column of bean, false to update not null column of bean
+     * @param <T>    {@link BaseBean} type class
+     * @return future of count of updated rows
+     * @see BaseDao#updateTableByIdList(BaseBean, List, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> updateTableByIdList(T bean, List<? extends Number> idList, boolean all) {
+        return supplyAsync(null, () -> BaseDao.updateTableByIdList(bean, idList, all));
+    }
+
+    /**
+     * Update the properties of bean by the given gid list asynchronously.
+     *
+     * @param bean    bean to update
+     * @param gidList a list gid of the beans which will be updated
+     * @param all     true to update all column of bean, false to update not null column of bean
+     * @param <T>     {@link BaseBean} type class
+     * @return future of count of updated rows
+     * @see BaseDao#updateTableByGidList(BaseBean, List, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> updateTableByGidList(T bean, List<String> gidList, boolean all) {
+        return supplyAsync(null, () -> BaseDao.updateTableByGidList(bean, gidList, all));
+    }
+
+    /**
+     * Count the columns by the param bean asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          the param bean
+     * @param <T>           {@link BaseBean} type class
+     * @return future of amount of rows which match the param bean
+     * @see BaseDao#countTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<Integer> countTableByBean(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.countTableByBean(bean));
+    }
+
+    /**
+     * Query a bean by the given id asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          bean object
+     * @param <T>           {@link BaseBean} type class
+     * @return future of the bean of query result
+     * @see BaseDao#selectTableById(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<T> selectTableById(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableById(bean));
+    }
+
+    /**
+     * Query a bean by the given gid asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          bean object
+     * @param <T>           {@link BaseBean} type class
+     * @return future of the bean of query result
+     * @see BaseDao#selectTableByGid(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<T> selectTableByGid(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableByGid(bean));
+    }
+
+    /**
+     * Query a bean by the given id list asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          bean object
+     * @param idList        a list id of the beans to query
+     * @param <T>           {@link BaseBean} type class
+     * @return future of the bean list of query result
+     * @see BaseDao#selectTableByIdList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<List<T>> selectTableByIdList(String slavePoolName, T bean, List<? extends Number> idList) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableByIdList(bean, idList));
+    }
+
+    /**
+     * Query a bean by the given gid list asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          bean object
+     * @param gidList       a list gid of the beans to query
+     * @param <T>           {@link BaseBean} type class
+     * @return future of the bean list of query result
+     * @see BaseDao#selectTableByGidList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<List<T>> selectTableByGidList(String slavePoolName, T bean, List<String> gidList) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableByGidList(bean, gidList));
+    }
+
+    /**
+     * Query a bean by the param bean asynchronously, match all the not null properties equals.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          the param bean
+     * @param <T>           {@link BaseBean} type class
+     * @return future of the first of query results
+     * @see BaseDao#selectOneTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<T> selectOneTableByBean(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectOneTableByBean(bean));
+    }
+
+    /**
+     * Query list of beans by the param bean asynchronously, match all the not null properties equals.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          the param bean
+     * @param <T>           {@link BaseBean} type class
+     * @return future of all query results
+     * @see BaseDao#selectTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<List<T>> selectTableByBean(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableByBean(bean));
+    }
+
+    /**
+     * Query all rows asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          bean object
+     * @param <T>           {@link BaseBean} type class
+     * @return future of all rows
+     * @see BaseDao#selectAllTable(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<List<T>> selectAllTable(String slavePoolName, T bean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectAllTable(bean));
+    }
+
+    /**
+     * Query list of beans by the param bean for page asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param bean          the param bean
+     * @param page          page number
+     * @param size          the count of data displayed on each page
+     * @param <T>           {@link BaseBean} type class
+     * @return future of {@link PageBean} object
+     * @see BaseDao#selectTableForPage(BaseBean, int, int)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<PageBean<T>> selectTableForPage(String slavePoolName, T bean, int page, int size) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableForPage(bean, page, size));
+    }
+
+    /**
+     * Query list of beans for page by given sql and param list asynchronously.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param pageParamBean {@link PageParamBean} object
+     * @param <T>           {@link BaseBean} type class
+     * @return future of {@link PageBean} object
+     * @see BaseDao#selectTableForPage(PageParamBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> CompletableFuture<PageBean<T>> selectTableForPage(String slavePoolName, PageParamBean<T> pageParamBean) {
+        return supplyAsync(slavePoolName, () -> BaseDao.selectTableForPage(pageParamBean));
+    }
+
+    /**
+     * Get the executor, the default one will be created at the first call.
+     *
+     * @return the executor to run the work
+     * @since 2.7
+     */
+    static ExecutorService getExecutor() {
+        ExecutorService executor = EXECUTOR;
+        if (executor == null) {
+            synchronized (AsyncDao.class) {
+                if (EXECUTOR == null) {
+                    EXECUTOR = createDefaultExecutor();
+                }
+                executor = EXECUTOR;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * <p>Run the task on the executor when the concurrency of the given datasource is not full,
+     * otherwise queue it until a running task of the datasource finished.</p>
+     * <p>The task may be dispatched later by the thread of another finished task, so the rejection of the executor,
+     * eg: after {@link #shutdown()}, is passed to the rejected handler instead of thrown to the caller.</p>
+     *
+     * @param dataSource      datasource object which the task uses
+     * @param task            the task
+     * @param rejectedHandler handler of the exception when the executor rejects the task
+     * @since 2.7
+     */
+    static void execute(DataSource dataSource, Runnable task, Consumer<RuntimeException> rejectedHandler) {
+        LANE_MAP.computeIfAbsent(dataSource, ds -> new Lane(ConnectionPool.getMaximumPoolSize(ds))).submit(new LaneTask(task, rejectedHandler));
+    }
+
+    /**
+     * <p>Create the default executor.</p>
+     * <p>{@code Executors#newVirtualThreadPerTaskExecutor()} is used when found in the runtime,
+     * otherwise a fixed thread pool of daemon threads sized by the sum of all the datasource sizes.</p>
+     *
+     * @return the default executor
+     * @since 2.7
+     */
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            int size = 0;
+            for (DataSource dataSource : ConnectionPool.getAllDataSource()) {
+                size += ConnectionPool.getMaximumPoolSize(dataSource);
+            }
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            ThreadFactory threadFactory = r -> {
+                Thread thread = new Thread(r, "fastjdbc-async-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(size, threadFactory);
+        }
+    }
+
+    /**
+     * The tasks of a datasource, at most max concurrent tasks are dispatched to the executor and the others wait
+     * in the queue, the next task is dispatched when a running task finished. A rejected task is failed by its
+     * handler and its slot goes to the next queued task, so no queued task is left waiting for a slot forever.
+     *
+     * @since 2.7
+     */
+    private static class Lane {
+
+        private final int maxConcurrent;
+
+        private final Queue<LaneTask> waitingQueue = new ArrayDeque<LaneTask>();
+
+        private int running;
+
+        private Lane(int maxConcurrent) {
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+        }
+
+        private void submit(LaneTask task) {
+            synchronized (this) {
+                if (running >= maxConcurrent) {
+                    waitingQueue.add(task);
+                    return;
+                }
+                running++;
+            }
+            if (!dispatch(task)) {
+                release();
+            }
+        }
+
+        private boolean dispatch(LaneTask task) {
+            try {
+                getExecutor().execute(() -> {
+                    try {
+                        task.task.run();
+                    } finally {
+                        release();
+                    }
+                });
+                return true;
+            } catch (RuntimeException e) {
+                task.rejectedHandler.accept(e);
+                return false;
+            }
+        }
+
+        private void release() {
+            LaneTask task = next();
+            while (task != null && !dispatch(task)) {
+                task = next();
+            }
+        }
+
+        private LaneTask next() {
+            synchronized (this) {
+                LaneTask next = waitingQueue.poll();
+                if (next == null) {
+                    running--;
+                }
+                return next;
+            }
+        }
+    }
+
+    /**
+     * A task of the lane with the handler of its rejection.
+     *
+     * @since 2.7
+     */
+    private static class LaneTask {
+
+        private final Runnable task;
+
+        private final Consumer<RuntimeException> rejectedHandler;
+
+        private LaneTask(Runnable task, Consumer<RuntimeException> rejectedHandler) {
+            this.task = task;
+            this.rejectedHandler = rejectedHandler;
+        }
+    }
+
+}
@@ -25,9 +25,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * <p>A common template of DAO layer, all the classes of DAO layer should extends this class.</p>
@@ -48,6 +55,13 @@ public class BaseDao {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseDao.class);
 
+    /**
+     * Max count of statements in one JDBC batch.
+     *
+     * @since 2.7
+     */
+    private static final int BATCH_SIZE = 1000;
+
     /**
      * Insert the not null properties of bean.
      *
@@ -60,7 +74,7 @@ public class BaseDao {
      */
     public static <T extends BaseBean> int insertIntoTable(T bean) throws SQLException {
         List<Object> paramList = new ArrayList<Object>();
-        String sql = getInsertSql(bean, paramList);
+        String sql = getInsertSql(bean.tableName(), bean, paramList);
         return executeUpdate(sql, paramList);
     }
 
@@ -76,10 +90,26 @@ public class BaseDao {
      */
     public static <T extends BaseBean> Integer insertIntoTableReturnId(T bean) throws SQLException {
         List<Object> paramList = new ArrayList<Object>();
-        String sql = getInsertSql(bean, paramList);
+        String sql = getInsertSql(bean.tableName(), bean, paramList);
         return executeUpdateReturnId(sql, paramList);
     }
 
+    /**
+     * Insert the not null properties of bean and return the generated primary key of bigint type.
+     *
+     * @param bean bean to insert
+     * @param <T>  {@link BaseBean} type class
+     * @return generated primary key
+     * @throws SQLException exception when insert failed
+     * @see BaseBean#columnMap(boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> long insertIntoTableReturnLongId(T bean) throws SQLException {
+        List<Object> paramList = new ArrayList<Object>();
+        String sql = getInsertSql(bean.tableName(), bean, paramList);
+        return executeUpdateReturnLongId(sql, paramList);
+    }
+
     /**
      * Batch insert the properties of bean list.
      *
@@ -92,14 +122,19 @@ public class BaseDao {
      */
     public static <T extends BaseBean> int batchInsertIntoTable(List<T> list) throws SQLException {
         List<Object> paramList = new ArrayList<Object>();
-        String sql = getBatchInsertSql(list, paramList);
+        String sql = getBatchInsertSql(list.get(0).tableName(), list, paramList);
         return executeUpdate(sql, paramList);
     }
 
     /**
-     * Update the properties of bean by the primary key of bean, the primary key
+     * <p>Update the properties of bean by the primary key of bean, the primary key
      * property should not null otherwise nothing will be updated, the primary column
-     * should be named by id and int type in mysql.
+     * should be named by id and int type in mysql.</p>
+     * <p>When the bean has a not null {@code version} column, it's used as optimistic lock:
+     * the row is updated only when its version is same as the bean, the version is increased by 1,
+     * and {@link OptimisticLockException} is thrown when no row updated. The version property of the bean
+     * is not changed, so the bean should be loaded again before the next update. The {@code version} column
+     * is never set to the value of the bean, even when {@code all} is true.</p>
      *
      * @param bean bean to update
      * @param all  true to update all column of bean, false to update not null column of bean
@@ -114,15 +149,13 @@ public class BaseDao {
         Map<String, Object> columnMap = bean.columnMap(all);
         Object id = columnMap.get("id");
         columnMap.remove("id");
-        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 1);
-        String columnParamSql = makeColumnParamSql(columnMap, paramList, ", ");
-        paramList.add(id);
-        return executeUpdate("UPDATE " + bean.tableName() + " SET " + columnParamSql + " WHERE id = ?", paramList);
+        return updateTableByKey(bean.tableName(), columnMap, "id", id, columnMap.remove("version"));
     }
 
     /**
-     * Update the properties of bean by the gid of bean, the column named gid
-     * should be exists and should not null otherwise nothing will be updated.
+     * <p>Update the properties of bean by the gid of bean, the column named gid
+     * should be exists and should not null otherwise nothing will be updated.</p>
+     * <p>The {@code version} column is used as optimistic lock same as {@link #updateTableById(BaseBean, boolean)}.</p>
      *
      * @param bean bean to update
      * @param all  true to update all column of bean, false to update not null column of bean
@@ -136,10 +169,7 @@ public class BaseDao {
     public static <T extends BaseBean> int updateTableByGid(T bean, boolean all) throws SQLException {
         Map<String, Object> columnMap = bean.columnMap(all);
         columnMap.remove("id");
-        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 1);
-        String columnParamSql = makeColumnParamSql(columnMap, paramList, ", ");
-        paramList.add(columnMap.get("gid"));
-        return executeUpdate("UPDATE " + bean.tableName() + " SET " + columnParamSql + " WHERE gid = ?", paramList);
+        return updateTableByKey(bean.tableName(), columnMap, "gid", columnMap.get("gid"), columnMap.remove("version"));
     }
 
     /**
@@ -156,7 +186,7 @@ public class BaseDao {
      * @since 1.4
      */
     @SuppressWarnings("unchecked")
-    public static <T extends BaseBean> int updateTableByIdList(T bean, List<Integer> idList, boolean all) throws SQLException {
+    public static <T extends BaseBean> int updateTableByIdList(T bean, List<? extends Number> idList, boolean all) throws SQLException {
         Map<String, Object> columnMap = bean.columnMap(all);
         columnMap.remove("id");
         List<Object> paramList = new ArrayList<Object>(columnMap.size() + idList.size());
@@ -165,6 +195,28 @@ public class BaseDao {
         return executeUpdate("UPDATE " + bean.tableName() + " SET " + columnParamSql + " WHERE id" + makeInStr(idList), paramList);
     }
 
+    /**
+     * Update the properties of bean by the given id array, the ids are set to the statement without boxing.
+     *
+     * @param bean    bean to update
+     * @param idArray an array id of the beans which will be updated
+     * @param all     true to update all column of bean, false to update not null column of bean
+     * @param <T>     {@link BaseBean} type class
+     * @return count of updated rows
+     * @throws SQLException exception when update failed
+     * @see BaseBean#columnMap(boolean)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> int updateTableByIdList(T bean, long[] idArray, boolean all) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(all);
+        columnMap.remove("id");
+        List<Object> paramList = new ArrayList<Object>(columnMap.size());
+        String columnParamSql = makeColumnParamSql(columnMap, paramList, ", ");
+        IdArrayList idList = new IdArrayList(idArray);
+        return executeUpdate("UPDATE " + bean.tableName() + " SET " + columnParamSql + " WHERE id" + makeInStr(idList), new IdArrayParamList(paramList, idList));
+    }
+
     /**
      * Update the properties of bean by the given gid list.
      *
@@ -183,10 +235,119 @@ public class BaseDao {
         columnMap.remove("id");
         List<Object> paramList = new ArrayList<Object>(columnMap.size() + gidList.size());
         String columnParamSql = makeColumnParamSql(columnMap, paramList, ", ");
-        paramList.addAll(gidList);
+        paramList.addAll(GidCodec.encodeList(gidList));
         return executeUpdate("UPDATE " + bean.tableName() + " SET " + columnParamSql + " WHERE gid" + makeInStr(gidList), paramList);
     }
 
+    /**
+     * <p>Update the changed columns of bean since loaded by the primary key of bean.</p>
+     * <p>The columns set to {@code null} are updated too, and nothing is executed when no column changed.
+     * The bean is snapshot again when updated.</p>
+     *
+     * @param bean bean to update
+     * @param <T>  {@link ChangeTrackingBean} type class
+     * @return count of updated rows, {@code 0} when no column changed
+     * @throws SQLException exception when update failed
+     * @see ChangeTrackingBean#changedColumnMap()
+     * @since 2.7
+     */
+    public static <T extends ChangeTrackingBean> int updateTableChangedById(T bean) throws SQLException {
+        return updateTableChanged(bean, "id");
+    }
+
+    /**
+     * <p>Update the changed columns of bean since loaded by the gid of bean when loaded.</p>
+     * <p>The columns set to {@code null} are updated too, and nothing is executed when no column changed.
+     * The bean is snapshot again when updated.</p>
+     *
+     * @param bean bean to update
+     * @param <T>  {@link ChangeTrackingBean} type class
+     * @return count of updated rows, {@code 0} when no column changed
+     * @throws SQLException exception when update failed
+     * @see ChangeTrackingBean#changedColumnMap()
+     * @since 2.7
+     */
+    public static <T extends ChangeTrackingBean> int updateTableChangedByGid(T bean) throws SQLException {
+        return updateTableChanged(bean, "gid");
+    }
+
+    /**
+     * <p>Batch update the properties of each bean in the list by the primary key of bean.</p>
+     * <p>The beans are grouped by the updated columns and each group is executed by JDBC batch,
+     * so the beans with different values are updated in a few round trips. For the tracked
+     * {@link ChangeTrackingBean} only the changed columns are updated when {@code all} is false,
+     * and the bean without change is skipped. The {@code version} column is used as optimistic lock same as
+     * {@link #updateTableById(BaseBean, boolean)}, the original version for the tracked bean, and
+     * {@link OptimisticLockException} is thrown for the first bean which updated no row, so the transaction
+     * should be rolled back. The tracked beans are snapshot again after update, the others stay not tracked.</p>
+     * <p>Note: add {@code rewriteBatchedStatements=true} to the url of mysql driver to send each batch in one packet,
+     * then the driver returns {@link Statement#SUCCESS_NO_INFO} for the rewritten statements, the returned count is {@code 0}
+     * and the version conflicts can't be found.</p>
+     *
+     * @param list list of bean to update, the id of each bean must not be {@code null}
+     * @param all  true to update all column of bean, false to update not null column of bean
+     * @param <T>  {@link BaseBean} type class
+     * @return count of updated rows, not counted when the driver returns no row count
+     * @throws SQLException exception when update failed
+     * @throws OptimisticLockException when a bean with version updated no row
+     * @see BaseBean#columnMap(boolean)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> int batchUpdateTableById(List<T> list, boolean all) throws SQLException {
+        if (list.isEmpty()) {
+            return 0;
+        }
+        List<Map<String, Object>> columnMapList = new ArrayList<Map<String, Object>>(list.size());
+        for (T bean : list) {
+            Map<String, Object> columnMap;
+            if (!all && bean instanceof ChangeTrackingBean) {
+                columnMap = ((ChangeTrackingBean) bean).changedColumnMap();
+                columnMap.put("id", ((ChangeTrackingBean) bean).originalValue("id"));
+                Object version = ((ChangeTrackingBean) bean).originalValue("version");
+                if (version != null) {
+                    columnMap.put("version", version);
+                }
+            } else {
+                columnMap = bean.columnMap(all);
+            }
+            if (columnMap.get("id") == null) {
+                throw new RuntimeException("id of bean to batch update table " + bean.tableName() + " must not be null");
+            }
+            columnMapList.add(columnMap);
+        }
+        int count = batchUpdateTableById(list.get(0).tableName(), columnMapList);
+        for (int i = 0, size = list.size(); i < size; i++) {
+            T bean = list.get(i);
+            if (bean instanceof ChangeTrackingBean && ((ChangeTrackingBean) bean).isTracked()) {
+                Map<String, Object> columnMap = columnMapList.get(i);
+                ((ChangeTrackingBean) bean).snapshot();
+                Object version = columnMap.get("version");
+                if (version != null && columnMap.size() > 2) {
+                    ((ChangeTrackingBean) bean).snapshotValue("version", nextVersion(version));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>Add the delta to the number column of the row by the primary key of bean atomically,
+     * no read is needed and the concurrent increments will not be lost.</p>
+     * eg: {@code UPDATE test SET view_count = view_count + ? WHERE id = ?}
+     *
+     * @param bean   bean object
+     * @param column the number column to increase
+     * @param delta  the delta to add, a negative number to decrease
+     * @param <T>    {@link BaseBean} type class
+     * @return count of updated rows
+     * @throws SQLException exception when update failed
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int incrementTableById(T bean, String column, long delta) throws SQLException {
+        return executeUpdate(makeIncrementSql(bean, column), List.of(delta, bean.columnMap(false).get("id")));
+    }
+
     /**
      * Update the properties of bean by the query result of param bean.
      *
@@ -235,6 +396,54 @@ public class BaseDao {
         return executeUpdate(updateBuilder.toString(), newList);
     }
 
+    /**
+     * <p>Make the rows in the scope of the param bean match the given list by {@code id}, the current rows are
+     * queried once and compared with the list, then only the differences are written in a few round trips:
+     * the rows not in the list are deleted by one statement, the changed columns of the rows are updated
+     * by JDBC batch as {@link #batchUpdateTableById(List, boolean)}, and the beans with {@code null} id
+     * are inserted by one statement.</p>
+     * <p>The current rows are queried by {@code SELECT ... FOR UPDATE} in the transaction of current thread,
+     * so the concurrent merges of the same scope are serialized until the transaction commits, instead of
+     * inserting or deleting the same rows twice. Index the scope columns, or the query locks the whole table.
+     * The {@code version} of the updated rows is increased by 1, so the updates of the beans loaded before fail
+     * with {@link OptimisticLockException} instead of overwriting the merge.</p>
+     * <p>Note: the beans to insert should have the scope columns set, or they are out of the scope after merge.
+     * Add {@code is_valid = 1} to the scope when soft delete, or the soft deleted rows are still in the scope.
+     * The updated count is {@code 0} when the driver rewrites the batch with {@code rewriteBatchedStatements=true}.</p>
+     *
+     * @param scopeBean  param bean to query the current rows by the not null columns, must not be empty
+     * @param list       the list of bean the scope should be, the id of the bean should be in the scope or {@code null}
+     * @param all        true to compare and update all column of bean, false to compare and update not null column of bean
+     * @param softDelete true to soft delete the rows not in the list, false to delete them
+     * @param <T>        {@link BaseBean} type class
+     * @return counts of the changed rows
+     * @throws SQLException exception when merge failed
+     * @see BaseBean#columnMap(boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> MergeResult mergeTableById(T scopeBean, List<T> list, boolean all, boolean softDelete) throws SQLException {
+        return mergeTable(scopeBean, list, "id", all, softDelete);
+    }
+
+    /**
+     * <p>Make the rows in the scope of the param bean match the given list by {@code gid},
+     * same as {@link #mergeTableById(BaseBean, List, boolean, boolean)} except that the beans whose gid
+     * is not in the scope are inserted, so the gid of every bean must be set.</p>
+     *
+     * @param scopeBean  param bean to query the current rows by the not null columns, must not be empty
+     * @param list       the list of bean the scope should be, the gid of the bean must not be {@code null}
+     * @param all        true to compare and update all column of bean, false to compare and update not null column of bean
+     * @param softDelete true to soft delete the rows not in the list, false to delete them
+     * @param <T>        {@link BaseBean} type class
+     * @return counts of the changed rows
+     * @throws SQLException exception when merge failed
+     * @see BaseBean#columnMap(boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> MergeResult mergeTableByGid(T scopeBean, List<T> list, boolean all, boolean softDelete) throws SQLException {
+        return mergeTable(scopeBean, list, "gid", all, softDelete);
+    }
+
     /**
      * Soft delete a bean by the given id.
      * The column of delete mark should named {@code is_valid} with int type(tinyint in mysql) and
@@ -264,7 +473,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> int softDeleteTableByGid(T bean) throws SQLException {
-        return executeUpdate("UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE gid = ?", List.of(bean.columnMap(false).get("gid")));
+        return executeUpdate("UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE gid = ?", List.of(GidCodec.encode(bean.columnMap(false).get("gid"))));
     }
 
     /**
@@ -280,10 +489,24 @@ public class BaseDao {
      * @throws SQLException exception when soft delete
      * @since 1.0
      */
-    public static <T extends BaseBean> int softDeleteTableByIdList(T bean, List<Integer> idList) throws SQLException {
+    public static <T extends BaseBean> int softDeleteTableByIdList(T bean, List<? extends Number> idList) throws SQLException {
         return executeUpdate("UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE id" + makeInStr(idList), idList);
     }
 
+    /**
+     * Soft delete beans by the given id array, the ids are set to the statement without boxing.
+     *
+     * @param bean    bean object
+     * @param idArray an array id of the beans which will be soft deleted
+     * @param <T>     {@link BaseBean} type class
+     * @return count of soft deleted rows
+     * @throws SQLException exception when soft delete
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int softDeleteTableByIdList(T bean, long[] idArray) throws SQLException {
+        return softDeleteTableByIdList(bean, new IdArrayList(idArray));
+    }
+
     /**
      * Soft delete a bean by the given gid list.
      * The column of delete mark should named {@code is_valid} with int type(tinyint in mysql) and
@@ -298,7 +521,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> int softDeleteTableByGidList(T bean, List<String> gidList) throws SQLException {
-        return executeUpdate("UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE gid" + makeInStr(gidList), gidList);
+        return executeUpdate("UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE gid" + makeInStr(gidList), GidCodec.encodeList(gidList));
     }
 
     /**
@@ -324,7 +547,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> int deleteTableByGid(T bean) throws SQLException {
-        return executeUpdate("DELETE FROM " + bean.tableName() + " WHERE gid = ?", List.of(bean.columnMap(false).get("gid")));
+        return executeUpdate("DELETE FROM " + bean.tableName() + " WHERE gid = ?", List.of(GidCodec.encode(bean.columnMap(false).get("gid"))));
     }
 
     /**
@@ -337,10 +560,24 @@ public class BaseDao {
      * @throws SQLException exception when delete
      * @since 1.3
      */
-    public static <T extends BaseBean> int deleteTableByIdList(T bean, List<Integer> idList) throws SQLException {
+    public static <T extends BaseBean> int deleteTableByIdList(T bean, List<? extends Number> idList) throws SQLException {
         return executeUpdate("DELETE FROM " + bean.tableName() + " WHERE id" + makeInStr(idList), idList);
     }
 
+    /**
+     * Delete beans by the given id array, the ids are set to the statement without boxing.
+     *
+     * @param bean    bean object
+     * @param idArray an array id of the beans which will be deleted
+     * @param <T>     {@link BaseBean} type class
+     * @return count of deleted rows
+     * @throws SQLException exception when delete
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int deleteTableByIdList(T bean, long[] idArray) throws SQLException {
+        return deleteTableByIdList(bean, new IdArrayList(idArray));
+    }
+
     /**
      * Delete a bean by the given gid list.
      *
@@ -352,7 +589,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> int deleteTableByGidList(T bean, List<String> gidList) throws SQLException {
-        return executeUpdate("DELETE FROM " + bean.tableName() + " WHERE gid" + makeInStr(gidList), gidList);
+        return executeUpdate("DELETE FROM " + bean.tableName() + " WHERE gid" + makeInStr(gidList), GidCodec.encodeList(gidList));
     }
 
     /**
@@ -383,7 +620,7 @@ public class BaseDao {
     }
 
     /**
-     * Query a bean by the given id.
+     * Query a bean by the given id, it's answered by the registered {@link CachedTable} in a read only connection.
      *
      * @param bean bean object
      * @param <T>  {@link BaseBean} type class
@@ -392,6 +629,10 @@ public class BaseDao {
      * @since 1.0
      */
     public static <T extends BaseBean> T selectTableById(T bean) throws SQLException {
+        CachedTable<T> cachedTable = CachedTable.getReadable(bean);
+        if (cachedTable != null) {
+            return cachedTable.selectTableById(bean);
+        }
         return executeSelectReturnBean("SELECT * FROM " + bean.tableName() + " WHERE id = ?", List.of(bean.columnMap(false).get("id")), bean);
     }
 
@@ -405,7 +646,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> T selectTableByGid(T bean) throws SQLException {
-        return executeSelectReturnBean("SELECT * FROM " + bean.tableName() + " WHERE gid = ?", List.of(bean.columnMap(false).get("gid")), bean);
+        return executeSelectReturnBean("SELECT * FROM " + bean.tableName() + " WHERE gid = ?", List.of(GidCodec.encode(bean.columnMap(false).get("gid"))), bean);
     }
 
     /**
@@ -418,10 +659,24 @@ public class BaseDao {
      * @throws SQLException exception when query
      * @since 1.0
      */
-    public static <T extends BaseBean> List<T> selectTableByIdList(T bean, List<Integer> idList) throws SQLException {
+    public static <T extends BaseBean> List<T> selectTableByIdList(T bean, List<? extends Number> idList) throws SQLException {
         return executeSelectReturnList("SELECT * FROM " + bean.tableName() + " WHERE id" + makeInStr(idList), idList, bean);
     }
 
+    /**
+     * Query beans by the given id array, the ids are set to the statement without boxing.
+     *
+     * @param bean    bean object
+     * @param idArray an array id of the beans to query
+     * @param <T>     {@link BaseBean} type class
+     * @return the bean list of query result
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByIdList(T bean, long[] idArray) throws SQLException {
+        return selectTableByIdList(bean, new IdArrayList(idArray));
+    }
+
     /**
      * Query a bean by the given gid list.
      *
@@ -433,7 +688,7 @@ public class BaseDao {
      * @since 2.1
      */
     public static <T extends BaseBean> List<T> selectTableByGidList(T bean, List<String> gidList) throws SQLException {
-        return executeSelectReturnList("SELECT * FROM " + bean.tableName() + " WHERE gid" + makeInStr(gidList), gidList, bean);
+        return executeSelectReturnList("SELECT * FROM " + bean.tableName() + " WHERE gid" + makeInStr(gidList), GidCodec.encodeList(gidList), bean);
     }
 
     /**
@@ -456,7 +711,8 @@ public class BaseDao {
     }
 
     /**
-     * Query list of beans by the param bean, match all the not null properties equals.
+     * Query list of beans by the param bean, match all the not null properties equals,
+     * it's answered by the registered {@link CachedTable} in a read only connection.
      *
      * @param bean the param bean
      * @param <T>  {@link BaseBean} type class
@@ -466,6 +722,10 @@ public class BaseDao {
      */
     @SuppressWarnings("unchecked")
     public static <T extends BaseBean> List<T> selectTableByBean(T bean) throws SQLException {
+        CachedTable<T> cachedTable = CachedTable.getReadable(bean);
+        if (cachedTable != null) {
+            return cachedTable.selectTableByBean(bean);
+        }
         Map<String, Object> columnMap = bean.columnMap(false);
         int size = columnMap.size();
         List<Object> paramList = new ArrayList<Object>(size > 0 ? size : 1);
@@ -486,6 +746,43 @@ public class BaseDao {
         return executeSelectReturnList("SELECT * FROM " + bean.tableName(), null, bean);
     }
 
+    /**
+     * <p>Query the next rows after the given id by the param bean in ascending order of id,
+     * match all the not null properties except id equals.</p>
+     * <p>It's a keyset cursor which costs the same for any position, unlike the offset of page, eg:</p>
+     * <pre>{@code
+     * long lastId = 0;
+     * List<Test> testList;
+     * do {
+     *     testList = TestDao.selectTableAfterId(new Test().setIsValid(1), lastId, 1000);
+     *     if (!testList.isEmpty()) {
+     *         lastId = testList.get(testList.size() - 1).getId();
+     *     }
+     * } while (testList.size() == 1000);
+     * }</pre>
+     *
+     * @param bean   the param bean
+     * @param lastId the last id of the previous rows, {@code 0} for the first rows
+     * @param limit  max count of rows
+     * @param <T>    {@link BaseBean} type class
+     * @return query results in ascending order of id
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> List<T> selectTableAfterId(T bean, long lastId, int limit) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        columnMap.remove("id");
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 2);
+        StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM ").append(bean.tableName()).append(" WHERE ");
+        if (!columnMap.isEmpty()) {
+            sqlBuilder.append(makeColumnParamSql(columnMap, paramList, " AND ")).append(" AND ");
+        }
+        paramList.add(lastId);
+        paramList.add(limit);
+        return executeSelectReturnList(sqlBuilder.append("id > ? ORDER BY id LIMIT ?").toString(), paramList, bean);
+    }
+
     /**
      * Query list of beans by the param bean for page, match all the not null properties equals.
      *
@@ -534,6 +831,7 @@ public class BaseDao {
         List<Object> paramList = pageParamBean.getParamList();
         ResultSet countResult = null;
         ResultSet pageResult = null;
+        RowMapper<T> mapper = pageParamBean.getMapper();
         List<T> data = new ArrayList<T>();
         try {
             int total = 0;
@@ -554,7 +852,7 @@ public class BaseDao {
                 paramList.add(size);
                 pageResult = executeSelectReturnResultSet(pageParamBean.getSql() + " LIMIT ?, ?", paramList);
                 while (pageResult.next()) {
-                    data.add((T) bean.beanFromResultSet(pageResult));
+                    data.add(mapper == null ? beanFromResultSet(bean, pageResult) : mapper.mapRow(pageResult));
                 }
             }
             pageBean.setTotal(total).setPage(page).setData(data);
@@ -565,6 +863,464 @@ public class BaseDao {
         return pageBean;
     }
 
+    /**
+     * Query the given columns of a bean by the given id.
+     *
+     * @param bean       bean object
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object of query result
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    public static <T extends BaseBean, R> R selectTableById(T bean, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        return executeSelectReturnBean("SELECT " + makeColumnSql(bean, columnList) + " FROM " + bean.tableName() + " WHERE id = ?", List.of(bean.columnMap(false).get("id")), mapper);
+    }
+
+    /**
+     * Query the given columns of a bean by the given gid.
+     *
+     * @param bean       bean object
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object of query result
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    public static <T extends BaseBean, R> R selectTableByGid(T bean, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        return executeSelectReturnBean("SELECT " + makeColumnSql(bean, columnList) + " FROM " + bean.tableName() + " WHERE gid = ?", List.of(GidCodec.encode(bean.columnMap(false).get("gid"))), mapper);
+    }
+
+    /**
+     * Query the given columns of beans by the given id list.
+     *
+     * @param bean       bean object
+     * @param idList     a list id of the beans to query
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object list of query result
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    public static <T extends BaseBean, R> List<R> selectTableByIdList(T bean, List<? extends Number> idList, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        return executeSelectReturnList("SELECT " + makeColumnSql(bean, columnList) + " FROM " + bean.tableName() + " WHERE id" + makeInStr(idList), idList, mapper);
+    }
+
+    /**
+     * Query the given columns of beans by the given gid list.
+     *
+     * @param bean       bean object
+     * @param gidList    a list gid of the beans to query
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object list of query result
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    public static <T extends BaseBean, R> List<R> selectTableByGidList(T bean, List<String> gidList, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        return executeSelectReturnList("SELECT " + makeColumnSql(bean, columnList) + " FROM " + bean.tableName() + " WHERE gid" + makeInStr(gidList), GidCodec.encodeList(gidList), mapper);
+    }
+
+    /**
+     * Query the given columns of beans by the param bean, match all the not null properties equals.
+     *
+     * @param bean       the param bean
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object list of query result
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean, R> List<R> selectTableByBean(T bean, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        int size = columnMap.size();
+        List<Object> paramList = new ArrayList<Object>(size > 0 ? size : 1);
+        String sql = makeSelectTableSql(bean, makeColumnSql(bean, columnList), columnMap, paramList);
+        return executeSelectReturnList(sql, paramList, mapper);
+    }
+
+    /**
+     * Query the given columns of all rows.
+     *
+     * @param bean       bean object
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @param <R>        the result type
+     * @return the mapped object list of all rows
+     * @throws SQLException exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    public static <T extends BaseBean, R> List<R> selectAllTable(T bean, List<String> columnList, RowMapper<R> mapper) throws SQLException {
+        return executeSelectReturnList("SELECT " + makeColumnSql(bean, columnList) + " FROM " + bean.tableName(), null, mapper);
+    }
+
+    /**
+     * Query the given columns of beans by the param bean for page, match all the not null properties equals.
+     *
+     * @param bean       the param bean
+     * @param page       page number
+     * @param size       the count of data displayed on each page
+     * @param columnList columns to select
+     * @param mapper     mapper to read the selected columns
+     * @param <T>        {@link BaseBean} type class
+     * @return {@link PageBean} object
+     * @throws Exception exception when query
+     * @see RowMapper
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> PageBean<T> selectTableForPage(T bean, int page, int size, List<String> columnList, RowMapper<T> mapper) throws Exception {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        int columnSize = columnMap.size();
+        List<Object> paramList = new ArrayList<Object>(columnSize > 0 ? columnSize : 1);
+        String sql = makeSelectTableSql(bean, makeColumnSql(bean, columnList), columnMap, paramList);
+        String countSql = "SELECT COUNT(1)" + sql.substring(sql.indexOf(" FROM "));
+        PageParamBean<T> pageParamBean = new PageParamBean<T>()
+                .setBean(bean)
+                .setCountSql(countSql)
+                .setCountParamList(paramList)
+                .setSql(sql)
+                .setParamList(paramList)
+                .setPage(page)
+                .setSize(size)
+                .setMapper(mapper);
+        return selectTableForPage(pageParamBean);
+    }
+
+    /**
+     * Update the columns by the key column, use the version as optimistic lock when it's not null.
+     *
+     * @param tableName table name
+     * @param columnMap columns to update
+     * @param keyColumn the key column, id or gid
+     * @param key       value of the key column
+     * @param version   the expected version, {@code null} to update without optimistic lock
+     * @return count of updated rows
+     * @throws SQLException exception when update failed
+     * @throws OptimisticLockException when version is not null and no row updated
+     * @since 2.7
+     */
+    private static int updateTableByKey(String tableName, Map<String, Object> columnMap, String keyColumn, Object key, Object version) throws SQLException {
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 2);
+        StringBuilder sqlBuilder = new StringBuilder("UPDATE ").append(tableName).append(" SET ").append(makeColumnParamSql(columnMap, paramList, ", "));
+        paramList.add("gid".equals(keyColumn) ? GidCodec.encode(key) : key);
+        if (version == null) {
+            return executeUpdate(sqlBuilder.append(" WHERE ").append(keyColumn).append(" = ?").toString(), paramList);
+        }
+        if (!columnMap.isEmpty()) {
+            sqlBuilder.append(", ");
+        }
+        sqlBuilder.append("version = version + 1 WHERE ").append(keyColumn).append(" = ? AND version = ?");
+        paramList.add(version);
+        int count = executeUpdate(sqlBuilder.toString(), paramList);
+        if (count == 0) {
+            throw new OptimisticLockException(tableName, key, version);
+        }
+        return count;
+    }
+
+    /**
+     * Get the next version of the given version.
+     *
+     * @param version current version
+     * @return the next version
+     * @since 2.7
+     */
+    private static Object nextVersion(Object version) {
+        if (version instanceof Long) {
+            return (Long) version + 1;
+        }
+        return ((Number) version).intValue() + 1;
+    }
+
+    /**
+     * Update the changed columns of bean by the original value of the key column.
+     *
+     * @param bean      bean to update
+     * @param keyColumn the key column, id or gid
+     * @param <T>       {@link ChangeTrackingBean} type class
+     * @return count of updated rows
+     * @throws SQLException exception when update failed
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends ChangeTrackingBean> int updateTableChanged(T bean, String keyColumn) throws SQLException {
+        Map<String, Object> columnMap = bean.changedColumnMap();
+        columnMap.remove("id");
+        columnMap.remove("version");
+        if (columnMap.isEmpty()) {
+            return 0;
+        }
+        Object version = bean.originalValue("version");
+        int count = updateTableByKey(bean.tableName(), columnMap, keyColumn, bean.originalValue(keyColumn), version);
+        if (count > 0) {
+            bean.snapshot();
+            if (version != null) {
+                bean.snapshotValue("version", nextVersion(version));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>Batch update the given column maps by the {@code id} in each map, the maps are grouped
+     * by the column names and each group is executed by JDBC batch.</p>
+     * <p>When the map has a not null {@code version}, it's used as optimistic lock same as
+     * {@link #updateTableById(BaseBean, boolean)}: the row is updated only when its version is same,
+     * and the version is increased by 1. {@link OptimisticLockException} is thrown for the first map
+     * which updated no row after its group executed, the updates before are not rolled back.</p>
+     *
+     * @param tableName     table name
+     * @param columnMapList list of column map, the map without other column than {@code id} and {@code version} is skipped
+     * @return count of updated rows
+     * @throws SQLException exception when update failed
+     * @throws OptimisticLockException when a map with version updated no row
+     * @since 2.7
+     */
+    static int batchUpdateTableById(String tableName, List<Map<String, Object>> columnMapList) throws SQLException {
+        Map<String, List<List<Object>>> sqlParamMap = new LinkedHashMap<String, List<List<Object>>>();
+        for (Map<String, Object> columnMap : columnMapList) {
+            Map<String, Object> sortedMap = new TreeMap<String, Object>(columnMap);
+            Object id = sortedMap.remove("id");
+            Object version = sortedMap.remove("version");
+            if (id == null || sortedMap.isEmpty()) {
+                continue;
+            }
+            List<Object> paramList = new ArrayList<Object>(sortedMap.size() + 2);
+            StringBuilder sqlBuilder = new StringBuilder("UPDATE ").append(tableName).append(" SET ").append(makeColumnParamSql(sortedMap, paramList, ", "));
+            paramList.add(id);
+            if (version == null) {
+                sqlBuilder.append(" WHERE id = ?");
+            } else {
+                sqlBuilder.append(", version = version + 1 WHERE id = ? AND version = ?");
+                paramList.add(version);
+            }
+            sqlParamMap.computeIfAbsent(sqlBuilder.toString(), k -> new ArrayList<List<Object>>()).add(paramList);
+        }
+        int count = 0;
+        for (Map.Entry<String, List<List<Object>>> entry : sqlParamMap.entrySet()) {
+            String sql = entry.getKey();
+            List<List<Object>> paramListList = entry.getValue();
+            int[] results = executeBatchUpdateReturnCounts(sql, paramListList);
+            boolean versioned = sql.endsWith(" AND version = ?");
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] > 0) {
+                    count += results[i];
+                } else if (versioned && results[i] == 0) {
+                    List<Object> paramList = paramListList.get(i);
+                    throw new OptimisticLockException(tableName, paramList.get(paramList.size() - 2), paramList.get(paramList.size() - 1));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merge the rows in the scope of the param bean with the given list by the key column.
+     *
+     * @param scopeBean  param bean to query the current rows by the not null columns
+     * @param list       the list of bean the scope should be
+     * @param keyColumn  {@code id} or {@code gid}
+     * @param all        true to compare and update all column of bean, false to compare and update not null column of bean
+     * @param softDelete true to soft delete the rows not in the list, false to delete them
+     * @param <T>        {@link BaseBean} type class
+     * @return counts of the changed rows
+     * @throws SQLException exception when merge failed
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends BaseBean> MergeResult mergeTable(T scopeBean, List<T> list, String keyColumn, boolean all, boolean softDelete) throws SQLException {
+        String tableName = scopeBean.tableName();
+        Map<String, Object> scopeColumnMap = scopeBean.columnMap(false);
+        if (scopeColumnMap.isEmpty()) {
+            throw new RuntimeException("scope of merge table " + tableName + " must not be empty");
+        }
+        List<Object> scopeParamList = new ArrayList<Object>(scopeColumnMap.size());
+        String scopeSql = makeSelectTableSql(scopeBean, scopeColumnMap, scopeParamList, false) + " FOR UPDATE";
+        Map<Object, Map<String, Object>> currentMap = new HashMap<Object, Map<String, Object>>();
+        for (T current : executeSelectReturnList(scopeSql, scopeParamList, scopeBean)) {
+            Map<String, Object> columnMap = current.columnMap(true);
+            currentMap.put(columnMap.get(keyColumn), columnMap);
+        }
+        Set<Object> keySet = new HashSet<Object>();
+        List<T> insertList = new ArrayList<T>();
+        List<Map<String, Object>> updateList = new ArrayList<Map<String, Object>>();
+        for (T bean : list) {
+            Map<String, Object> columnMap = bean.columnMap(all);
+            Object key = bean.columnMap(true).get(keyColumn);
+            if (key == null) {
+                if ("gid".equals(keyColumn)) {
+                    throw new RuntimeException("gid of bean to merge table " + tableName + " must not be null");
+                }
+                insertList.add(bean);
+                continue;
+            }
+            if (!keySet.add(key)) {
+                throw new RuntimeException("duplicate " + keyColumn + " " + key + " to merge table " + tableName);
+            }
+            Map<String, Object> currentColumnMap = currentMap.remove(key);
+            if (currentColumnMap == null) {
+                if ("id".equals(keyColumn)) {
+                    throw new RuntimeException("id " + key + " is not in the scope to merge table " + tableName);
+                }
+                insertList.add(bean);
+                continue;
+            }
+            Map<String, Object> changedMap = new HashMap<String, Object>();
+            for (Map.Entry<String, Object> entry : columnMap.entrySet()) {
+                String column = entry.getKey();
+                if (!"id".equals(column) && !keyColumn.equals(column) && !"version".equals(column)
+                        && !ChangeTrackingBean.isSameValue(currentColumnMap.get(column), entry.getValue())) {
+                    changedMap.put(column, entry.getValue());
+                }
+            }
+            if (!changedMap.isEmpty()) {
+                changedMap.put("id", currentColumnMap.get("id"));
+                changedMap.put("version", currentColumnMap.get("version"));
+                updateList.add(changedMap);
+            }
+        }
+        MergeResult result = new MergeResult();
+        if (!currentMap.isEmpty()) {
+            List<Number> idList = new ArrayList<Number>(currentMap.size());
+            for (Map<String, Object> currentColumnMap : currentMap.values()) {
+                idList.add((Number) currentColumnMap.get("id"));
+            }
+            result.setDeletedCount(softDelete ? softDeleteTableByIdList(scopeBean, idList) : deleteTableByIdList(scopeBean, idList));
+        }
+        if (!updateList.isEmpty()) {
+            result.setUpdatedCount(batchUpdateTableById(tableName, updateList));
+        }
+        if (!insertList.isEmpty()) {
+            result.setInsertedCount(batchInsertIntoTable(insertList));
+        }
+        return result;
+    }
+
+    /**
+     * Join the sql to add delta to the number column by id, the column should be found in {@link BaseBean#columnMap(boolean)}.
+     *
+     * @param bean   bean object
+     * @param column the number column to increase
+     * @param <T>    {@link BaseBean} type class
+     * @return sql string
+     * @since 2.7
+     */
+    static <T extends BaseBean> String makeIncrementSql(T bean, String column) {
+        if ("id".equals(column) || !bean.columnMap(true).containsKey(column)) {
+            throw new RuntimeException("column " + column + " can not be increased in table " + bean.tableName());
+        }
+        return "UPDATE " + bean.tableName() + " SET " + column + " = " + column + " + ? WHERE id = ?";
+    }
+
+    /**
+     * Query the first rows of beans by the param bean in the given order, match all the not null properties equals.
+     *
+     * @param bean       the param bean
+     * @param orderBySql order by sql without {@code ORDER BY}, such as {@code create_time DESC, id DESC},
+     *                   only the columns of the bean with optional {@code ASC} or {@code DESC} are allowed
+     * @param limit      max count of rows
+     * @param <T>        {@link BaseBean} type class
+     * @return query results in the given order
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends BaseBean> List<T> selectTableByBean(T bean, String orderBySql, int limit) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 1);
+        String sql = makeSelectTableSql(bean, columnMap, paramList, false) + " ORDER BY " + makeOrderBySql(bean, orderBySql) + " LIMIT ?";
+        paramList.add(limit);
+        return executeSelectReturnList(sql, paramList, bean);
+    }
+
+    /**
+     * Query beans by the param bean in the id range, match all the not null properties except id equals.
+     *
+     * @param bean      the param bean
+     * @param startId   start id, inclusive
+     * @param endId     end id, exclusive
+     * @param fetchSize fetch size of the statement, {@link Integer#MIN_VALUE} to stream the rows in mysql
+     * @param <T>       {@link BaseBean} type class
+     * @return query results in the id range in ascending order of id
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends BaseBean> List<T> selectTableByIdRange(T bean, long startId, long endId, int fetchSize) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        columnMap.remove("id");
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 2);
+        StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM ").append(bean.tableName()).append(" WHERE ");
+        if (!columnMap.isEmpty()) {
+            sqlBuilder.append(makeColumnParamSql(columnMap, paramList, " AND ")).append(" AND ");
+        }
+        paramList.add(startId);
+        paramList.add(endId);
+        ResultSet rs = null;
+        try {
+            rs = executeSelectReturnResultSet(sqlBuilder.append("id >= ? AND id < ? ORDER BY id").toString(), paramList, fetchSize);
+            List<T> list = new ArrayList<T>();
+            while (rs.next()) {
+                list.add(beanFromResultSet(bean, rs));
+            }
+            return list;
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * <p>Run the unit of work again when {@link OptimisticLockException} thrown, until success or max attempts reached.</p>
+     * <p>Each attempt runs in a new transaction of master pool which is committed when finished or rolled back
+     * when failed, so the next attempt reads the latest committed row instead of the snapshot of the failed one.
+     * The work should load the latest row and apply the change again in each attempt, eg:</p>
+     * <pre>{@code
+     * BaseDao.retryOnConflict(3, () -> {
+     *     Test test = TestDao.selectTableById(new Test().setId(1));
+     *     return TestDao.updateTableById(test.setMoney(test.getMoney().add(BigDecimal.ONE)), false);
+     * });
+     * }</pre>
+     * <p>Note: current thread should have no connection, otherwise {@link RuntimeException} is thrown.</p>
+     *
+     * @param maxAttempts max attempts of the work
+     * @param callable    the unit of work
+     * @param <R>         the result type
+     * @return the result of the work
+     * @throws Exception the exception of the work, or the last {@link OptimisticLockException} when max attempts reached
+     * @since 2.7
+     */
+    public static <R> R retryOnConflict(int maxAttempts, SqlCallable<R> callable) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return ConnectionPool.callInConnection(null, callable);
+            } catch (OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOGGER.debug("Optimistic lock conflict, retry attempt {}: {}", attempt, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Join the placeholder by the param list size for sql statement.
      *
@@ -586,6 +1342,7 @@ public class BaseDao {
     /**
      * Join the sql of insert into table and add param to param list.
      *
+     * @param tableName table name to insert into, it's not {@link BaseBean#tableName()} for partition tables
      * @param bean      bean object
      * @param paramList param list
      * @param <T>       {@link BaseBean} type class
@@ -593,16 +1350,16 @@ public class BaseDao {
      * @since 1.0
      */
     @SuppressWarnings("unchecked")
-    private static <T extends BaseBean> String getInsertSql(T bean, List<Object> paramList) {
+    static <T extends BaseBean> String getInsertSql(String tableName, T bean, List<Object> paramList) {
         Map<String, Object> columnMap = bean.columnMap(false);
         int size = columnMap.size();
         StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("INSERT INTO ").append(bean.tableName()).append("(");
+        sqlBuilder.append("INSERT INTO ").append(tableName).append("(");
         StringBuilder valueBuilder = new StringBuilder();
         int offset = 1;
         for (Map.Entry<String, Object> entry : columnMap.entrySet()) {
             sqlBuilder.append(entry.getKey());
-            paramList.add(entry.getValue());
+            paramList.add("gid".equals(entry.getKey()) ? GidCodec.encode(entry.getValue()) : entry.getValue());
             valueBuilder.append("?");
             if (offset < size) {
                 sqlBuilder.append(", ");
@@ -616,6 +1373,7 @@ public class BaseDao {
     /**
      * Join the sql of batch insert into table and add param to param list.
      *
+     * @param tableName table name to insert into, it's not {@link BaseBean#tableName()} for partition tables
      * @param list      list of bean object
      * @param paramList param list
      * @param <T>       {@link BaseBean} type class
@@ -623,12 +1381,12 @@ public class BaseDao {
      * @since 1.4
      */
     @SuppressWarnings("unchecked")
-    private static <T extends BaseBean> String getBatchInsertSql(List<T> list, List<Object> paramList) {
+    static <T extends BaseBean> String getBatchInsertSql(String tableName, List<T> list, List<Object> paramList) {
         T bean = list.get(0);
         List<String> columnList = new ArrayList<String>(bean.columnMap(true).keySet());
         columnList.remove("id");
         StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("INSERT INTO ").append(bean.tableName()).append("(");
+        sqlBuilder.append("INSERT INTO ").append(tableName).append("(");
         StringBuilder valueBuilder = new StringBuilder(" (");
         for (int i = 0, size = columnList.size(), prev = size - 1; i < size; i++) {
             sqlBuilder.append(columnList.get(i));
@@ -648,7 +1406,7 @@ public class BaseDao {
             }
             Map<String, Object> columnMap = list.get(i).columnMap(true);
             for (String s : columnList) {
-                paramList.add(columnMap.get(s));
+                paramList.add("gid".equals(s) ? GidCodec.encode(columnMap.get(s)) : columnMap.get(s));
             }
         }
         return sqlBuilder.append(paramBuilder).toString();
@@ -663,13 +1421,13 @@ public class BaseDao {
      * @return sql string
      * @since 1.0
      */
-    private static String makeColumnParamSql(Map<String, Object> columnMap, List<Object> paramList, String separator) {
+    static String makeColumnParamSql(Map<String, Object> columnMap, List<Object> paramList, String separator) {
         StringBuilder sqlBuilder = new StringBuilder();
         int size = columnMap.size();
         int offset = 1;
         for (Map.Entry<String, Object> entry : columnMap.entrySet()) {
             sqlBuilder.append(entry.getKey()).append(" = ?");
-            paramList.add(entry.getValue());
+            paramList.add("gid".equals(entry.getKey()) ? GidCodec.encode(entry.getValue()) : entry.getValue());
             if (offset < size) {
                 sqlBuilder.append(separator);
             }
@@ -690,8 +1448,71 @@ public class BaseDao {
      * @since 1.0
      */
     private static <T extends BaseBean> String makeSelectTableSql(T bean, Map<String, Object> columnMap, List<Object> paramList, boolean isCountSql) {
-        String head = isCountSql ? "SELECT COUNT(1)" : "SELECT *";
-        return head + " FROM " + bean.tableName() + " WHERE " + makeColumnParamSql(columnMap, paramList, " AND ");
+        return makeSelectTableSql(bean, isCountSql ? "COUNT(1)" : "*", columnMap, paramList);
+    }
+
+    /**
+     * Join the not null column sql for select the given column sql and add param to param list.
+     *
+     * @param bean      bean object
+     * @param columnSql the column sql to select
+     * @param columnMap the column map collection
+     * @param paramList param list
+     * @param <T>       class which implement {@link BaseBean}
+     * @return sql string
+     * @since 2.7
+     */
+    private static <T extends BaseBean> String makeSelectTableSql(T bean, String columnSql, Map<String, Object> columnMap, List<Object> paramList) {
+        return "SELECT " + columnSql + " FROM " + bean.tableName() + " WHERE " + makeColumnParamSql(columnMap, paramList, " AND ");
+    }
+
+    /**
+     * Join the column list to select, all the columns should be found in {@link BaseBean#columnMap(boolean)}.
+     *
+     * @param bean       bean object
+     * @param columnList columns to select
+     * @param <T>        class which implement {@link BaseBean}
+     * @return sql string of columns
+     * @since 2.7
+     */
+    private static <T extends BaseBean> String makeColumnSql(T bean, List<String> columnList) {
+        if (columnList == null || columnList.isEmpty()) {
+            throw new RuntimeException("column list must not empty");
+        }
+        Map<?, ?> allColumnMap = bean.columnMap(true);
+        for (String column : columnList) {
+            if (!allColumnMap.containsKey(column)) {
+                throw new RuntimeException("column " + column + " not found in table " + bean.tableName());
+            }
+        }
+        return String.join(", ", columnList);
+    }
+
+    /**
+     * Check the order by sql, each item should be a column found in {@link BaseBean#columnMap(boolean)}
+     * with optional {@code ASC} or {@code DESC}, so no other sql can be injected.
+     *
+     * @param bean       bean object
+     * @param orderBySql order by sql without {@code ORDER BY}
+     * @param <T>        class which implement {@link BaseBean}
+     * @return the normalized order by sql
+     * @since 2.7
+     */
+    static <T extends BaseBean> String makeOrderBySql(T bean, String orderBySql) {
+        if (orderBySql == null || orderBySql.isBlank()) {
+            throw new RuntimeException("order by sql must not empty");
+        }
+        Map<?, ?> allColumnMap = bean.columnMap(true);
+        List<String> itemList = new ArrayList<String>();
+        for (String item : orderBySql.split(",")) {
+            String[] parts = item.trim().split("\\s+");
+            if (parts.length > 2 || !allColumnMap.containsKey(parts[0])
+                    || (parts.length == 2 && !"ASC".equalsIgnoreCase(parts[1]) && !"DESC".equalsIgnoreCase(parts[1]))) {
+                throw new RuntimeException("invalid order by " + item.trim() + " in table " + bean.tableName());
+            }
+            itemList.add(parts.length == 2 ? parts[0] + " " + parts[1].toUpperCase() : parts[0]);
+        }
+        return String.join(", ", itemList);
     }
 
     /**
@@ -708,10 +1529,79 @@ public class BaseDao {
         if (connection == null || connection.isClosed() || connection.isReadOnly()) {
             throw new RuntimeException("connection object must not null and not closed and not read only");
         }
+        WriteBuffer.flush(sql);
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             LOGGER.debug(makeLogSql(sql, paramList));
+            QueryDetector.record(sql);
             setParams(stmt, paramList);
-            return stmt.executeUpdate();
+            QueryTimeout.start(stmt);
+            try {
+                return stmt.executeUpdate();
+            } finally {
+                QueryTimeout.finish();
+            }
+        } catch (SQLException e) {
+            printError(sql, paramList);
+            throw e;
+        }
+    }
+
+    /**
+     * Execute update type sql with each param list by JDBC batch, {@link #BATCH_SIZE} statements in each batch.
+     *
+     * @param sql           sql to execute
+     * @param paramListList list of param list
+     * @return success rows count, the statements without row count information are not counted
+     * @throws SQLException exception when execute sql
+     * @since 2.7
+     */
+    protected static int executeBatchUpdate(String sql, List<? extends List<?>> paramListList) throws SQLException {
+        int count = 0;
+        for (int result : executeBatchUpdateReturnCounts(sql, paramListList)) {
+            if (result > 0) {
+                count += result;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Execute update type sql with each param list by JDBC batch, {@link #BATCH_SIZE} statements in each batch.
+     *
+     * @param sql           sql to execute
+     * @param paramListList list of param list
+     * @return the update count of each param list, {@link Statement#SUCCESS_NO_INFO} when the driver returns no row count
+     * @throws SQLException exception when execute sql
+     * @since 2.7
+     */
+    static int[] executeBatchUpdateReturnCounts(String sql, List<? extends List<?>> paramListList) throws SQLException {
+        Connection connection = ConnectionPool.CONNECTION_POOL.get();
+        if (connection == null || connection.isClosed() || connection.isReadOnly()) {
+            throw new RuntimeException("connection object must not null and not closed and not read only");
+        }
+        WriteBuffer.flush(sql);
+        List<?> paramList = null;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int[] results = new int[paramListList.size()];
+            for (int start = 0, size = paramListList.size(); start < size; start += BATCH_SIZE) {
+                for (int i = start, end = Math.min(size, start + BATCH_SIZE); i < end; i++) {
+                    paramList = paramListList.get(i);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(makeLogSql(sql, paramList));
+                    }
+                    setParams(stmt, paramList);
+                    stmt.addBatch();
+                }
+                QueryDetector.record(sql);
+                QueryTimeout.start(stmt);
+                try {
+                    int[] batchResults = stmt.executeBatch();
+                    System.arraycopy(batchResults, 0, results, start, batchResults.length);
+                } finally {
+                    QueryTimeout.finish();
+                }
+            }
+            return results;
         } catch (SQLException e) {
             printError(sql, paramList);
             throw e;
@@ -725,20 +1615,42 @@ public class BaseDao {
      * @param paramList param list
      * @return success rows count
      * @throws SQLException exception when execute sql
+     * @throws ArithmeticException when the id overflows int, use {@link #executeUpdateReturnLongId(String, List)} instead
      * @see BaseDao#insertIntoTableReturnId(BaseBean)
      * @since 1.0
      */
     protected static Integer executeUpdateReturnId(String sql, List<?> paramList) throws SQLException {
+        return Math.toIntExact(executeUpdateReturnLongId(sql, paramList));
+    }
+
+    /**
+     * Execute update type sql, only for insert sql and return id of bigint type.
+     *
+     * @param sql       sql to execute
+     * @param paramList param list
+     * @return generated id, {@code 0} when no id generated
+     * @throws SQLException exception when execute sql
+     * @see BaseDao#insertIntoTableReturnLongId(BaseBean)
+     * @since 2.7
+     */
+    protected static long executeUpdateReturnLongId(String sql, List<?> paramList) throws SQLException {
         Connection connection = ConnectionPool.CONNECTION_POOL.get();
         if (connection == null || connection.isClosed() || connection.isReadOnly()) {
             throw new RuntimeException("connection object must not null and not closed and not read only");
         }
+        WriteBuffer.flush(sql);
         try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             LOGGER.debug(makeLogSql(sql, paramList));
+            QueryDetector.record(sql);
             setParams(stmt, paramList);
-            stmt.executeUpdate();
+            QueryTimeout.start(stmt);
+            try {
+                stmt.executeUpdate();
+            } finally {
+                QueryTimeout.finish();
+            }
             try (ResultSet rs = stmt.getGeneratedKeys()) {
-                return rs.next() ? rs.getInt(1) : 0;
+                return rs.next() ? rs.getLong(1) : 0;
             }
         } catch (SQLException e) {
             printError(sql, paramList);
@@ -762,7 +1674,28 @@ public class BaseDao {
         ResultSet rs = null;
         try {
             rs = executeSelectReturnResultSet(sql, paramList);
-            return rs.next() ? (T) bean.beanFromResultSet(rs) : null;
+            return rs.next() ? beanFromResultSet(bean, rs) : null;
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * Execute a select sql and return an object of the first row mapped by the given mapper.
+     *
+     * @param sql       sql to execute
+     * @param paramList param list
+     * @param mapper    mapper to get object from the row
+     * @param <R>       the result type
+     * @return the mapped object, {@code null} when no row returned
+     * @throws SQLException exception when execute sql
+     * @since 2.7
+     */
+    protected static <R> R executeSelectReturnBean(String sql, List<?> paramList, RowMapper<R> mapper) throws SQLException {
+        ResultSet rs = null;
+        try {
+            rs = executeSelectReturnResultSet(sql, paramList);
+            return rs.next() ? mapper.mapRow(rs) : null;
         } finally {
             ConnectionPool.close(rs);
         }
@@ -862,7 +1795,32 @@ public class BaseDao {
             rs = executeSelectReturnResultSet(sql, paramList);
             List<T> resultList = new ArrayList<T>();
             while (rs.next()) {
-                resultList.add((T) bean.beanFromResultSet(rs));
+                resultList.add(beanFromResultSet(bean, rs));
+            }
+            return resultList;
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * Execute a select sql and return a list of objects mapped by the given mapper.
+     *
+     * @param sql       sql to execute
+     * @param paramList param list
+     * @param mapper    mapper to get object from each row
+     * @param <R>       the result type
+     * @return list of the mapped objects
+     * @throws SQLException exception when execute sql
+     * @since 2.7
+     */
+    protected static <R> List<R> executeSelectReturnList(String sql, List<?> paramList, RowMapper<R> mapper) throws SQLException {
+        ResultSet rs = null;
+        try {
+            rs = executeSelectReturnResultSet(sql, paramList);
+            List<R> resultList = new ArrayList<R>();
+            while (rs.next()) {
+                resultList.add(mapper.mapRow(rs));
             }
             return resultList;
         } finally {
@@ -974,21 +1932,67 @@ public class BaseDao {
      * @since 1.0
      */
     protected static ResultSet executeSelectReturnResultSet(String sql, List<?> paramList) throws SQLException {
+        return executeSelectReturnResultSet(sql, paramList, 0);
+    }
+
+    /**
+     * <p>Execute a select sql with the given fetch size and return a {@link ResultSet} object,
+     * same as {@link #executeSelectReturnResultSet(String, List)}.</p>
+     * <p>{@link Integer#MIN_VALUE} makes the mysql driver stream the rows one by one instead of reading all of them
+     * into memory, and no other statement can be executed on the connection before the {@link ResultSet} closed.</p>
+     *
+     * @param sql       sql to execute
+     * @param paramList param list
+     * @param fetchSize fetch size of the statement, {@code 0} for the driver default
+     * @return {@link ResultSet} object
+     * @throws SQLException exception when execute sql
+     * @since 2.7
+     */
+    static ResultSet executeSelectReturnResultSet(String sql, List<?> paramList, int fetchSize) throws SQLException {
         Connection connection = ConnectionPool.CONNECTION_POOL.get();
         if (connection == null || connection.isClosed()) {
             throw new RuntimeException("connection object must not null and not closed");
         }
+        WriteBuffer.flush(sql);
         try {
             LOGGER.debug(makeLogSql(sql, paramList));
+            QueryDetector.record(sql);
             PreparedStatement stmt = connection.prepareStatement(sql);
+            if (fetchSize != 0) {
+                stmt.setFetchSize(fetchSize);
+            }
             setParams(stmt, paramList);
-            return stmt.executeQuery();
+            QueryTimeout.start(stmt);
+            try {
+                return stmt.executeQuery();
+            } finally {
+                QueryTimeout.finish();
+            }
         } catch (SQLException e) {
             printError(sql, paramList);
             throw e;
         }
     }
 
+    /**
+     * Get an object of the bean from {@link ResultSet}, the object is snapshot when it's a {@link ChangeTrackingBean}.
+     *
+     * @param bean bean object which type is same as the return one
+     * @param rs   the ResultSet of query
+     * @param <T>  {@link BaseBean} type class
+     * @return the object of bean
+     * @throws SQLException the exception of parse value
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends BaseBean> T beanFromResultSet(T bean, ResultSet rs) throws SQLException {
+        T result = (T) bean.beanFromResultSet(rs);
+        if (result instanceof ChangeTrackingBean) {
+            ((ChangeTrackingBean) result).snapshot();
+        }
+        return result;
+    }
+
     /**
      * Set paramters for the prepared statement.
      *
@@ -998,7 +2002,21 @@ public class BaseDao {
      * @since 1.0
      */
     private static void setParams(PreparedStatement stmt, List<?> paramList) throws SQLException {
-        if (paramList != null) {
+        if (paramList instanceof IdArrayParamList) {
+            List<Object> headList = ((IdArrayParamList) paramList).headList;
+            long[] idArray = ((IdArrayParamList) paramList).idList.idArray;
+            for (int i = 0, size = headList.size(); i < size; i++) {
+                stmt.setObject(i + 1, headList.get(i));
+            }
+            for (int i = 0; i < idArray.length; i++) {
+                stmt.setLong(headList.size() + i + 1, idArray[i]);
+            }
+        } else if (paramList instanceof IdArrayList) {
+            long[] idArray = ((IdArrayList) paramList).idArray;
+            for (int i = 0; i < idArray.length; i++) {
+                stmt.setLong(i + 1, idArray[i]);
+            }
+        } else if (paramList != null) {
             for (int i = 0, size = paramList.size(); i < size; i++) {
                 stmt.setObject(i + 1, paramList.get(i));
             }
@@ -1037,4 +2055,57 @@ public class BaseDao {
         return sql;
     }
 
+    /**
+     * A read only list view of the id array, it's set to the statement by {@link PreparedStatement#setLong(int, long)}
+     * without boxing.
+     *
+     * @since 2.7
+     */
+    private static class IdArrayList extends AbstractList<Long> implements RandomAccess {
+
+        private final long[] idArray;
+
+        private IdArrayList(long[] idArray) {
+            this.idArray = idArray;
+        }
+
+        @Override
+        public Long get(int index) {
+            return idArray[index];
+        }
+
+        @Override
+        public int size() {
+            return idArray.length;
+        }
+    }
+
+    /**
+     * A read only list view of the column params followed by the id array, the ids are set to the statement by
+     * {@link PreparedStatement#setLong(int, long)} without boxing.
+     *
+     * @since 2.7
+     */
+    private static class IdArrayParamList extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> headList;
+
+        private final IdArrayList idList;
+
+        private IdArrayParamList(List<Object> headList, IdArrayList idList) {
+            this.headList = headList;
+            this.idList = idList;
+        }
+
+        @Override
+        public Object get(int index) {
+            return index < headList.size() ? headList.get(index) : idList.get(index - headList.size());
+        }
+
+        @Override
+        public int size() {
+            return headList.size() + idList.size();
+        }
+    }
+
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A loader which collects the id lookups of a unit of work and queries them together.</p>
+ * <p>The ids registered by {@link #load(BaseBean, Number)} are queried by one {@link BaseDao#selectTableByIdList(BaseBean, List)}
+ * for each table when {@link #get(BaseBean, Number)} asks for a result which is not loaded yet,
+ * or when the registered ids of a table reach the max batch size. Duplicated ids are queried only once and
+ * the loaded beans are kept, so the same id will never be queried twice by the loader.</p>
+ * <pre>{@code
+ * BatchLoader loader = new BatchLoader();
+ * for (Child child : childList) {
+ *     loader.load(new Parent(), child.getParentId());
+ * }
+ * for (Child child : childList) {
+ *     Parent parent = loader.get(new Parent(), child.getParentId());
+ * }
+ * }</pre>
+ * <p>The ids of {@link Integer} and {@link Long} type are same when they have the same value.</p>
+ * <p>Note: the loader uses the connection of current thread and is not thread safe,
+ * create a new one for each unit of work.</p>
+ *
+ * @since 2.7
+ */
+public class BatchLoader {
+
+    /**
+     * Default max count of ids in one query.
+     *
+     * @since 2.7
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Max count of ids in one query.
+     *
+     * @since 2.7
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Loading state of each table, key is table name.
+     *
+     * @since 2.7
+     */
+    private final Map<String, TableState> tableStateMap = new HashMap<String, TableState>();
+
+    /**
+     * Count of the requested ids.
+     *
+     * @since 2.7
+     */
+    private int loadCount;
+
+    /**
+     * Count of the executed queries.
+     *
+     * @since 2.7
+     */
+    private int queryCount;
+
+    /**
+     * Create a loader with the default max batch size.
+     *
+     * @since 2.7
+     */
+    public BatchLoader() {
+        this(DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create a loader with the given max batch size.
+     *
+     * @param maxBatchSize max count of ids in one query
+     * @since 2.7
+     */
+    public BatchLoader(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Register an id to load, the registered ids of the table are queried at once when the batch is full.
+     *
+     * @param bean bean object
+     * @param id   id to load
+     * @param <T>  {@link BaseBean} type class
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public <T extends BaseBean> void load(T bean, Number id) throws SQLException {
+        TableState state = getTableState(bean);
+        loadCount++;
+        if (id != null && !state.resultMap.containsKey(id.longValue()) && state.pendingIdSet.add(id.longValue()) && state.pendingIdSet.size() >= maxBatchSize) {
+            dispatch(bean, state);
+        }
+    }
+
+    /**
+     * Register a list of ids to load.
+     *
+     * @param bean   bean object
+     * @param idList a list id to load
+     * @param <T>    {@link BaseBean} type class
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public <T extends BaseBean> void loadList(T bean, List<? extends Number> idList) throws SQLException {
+        for (Number id : idList) {
+            load(bean, id);
+        }
+    }
+
+    /**
+     * Get the bean of the given id, all the registered ids of the table are queried together when it's not loaded.
+     * The id need not to be registered before.
+     *
+     * @param bean bean object
+     * @param id   id of the bean
+     * @param <T>  {@link BaseBean} type class
+     * @return the bean of the id, {@code null} when not found
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseBean> T get(T bean, Number id) throws SQLException {
+        if (id == null) {
+            return null;
+        }
+        Long key = id.longValue();
+        TableState state = getTableState(bean);
+        if (!state.resultMap.containsKey(key)) {
+            if (!state.pendingIdSet.contains(key)) {
+                loadCount++;
+                state.pendingIdSet.add(key);
+            }
+            dispatch(bean, state);
+        }
+        return (T) state.resultMap.get(key);
+    }
+
+    /**
+     * Get the beans of the given ids in the order of the ids, the ids not found are skipped.
+     *
+     * @param bean   bean object
+     * @param idList a list id of the beans
+     * @param <T>    {@link BaseBean} type class
+     * @return the bean list
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public <T extends BaseBean> List<T> getList(T bean, List<? extends Number> idList) throws SQLException {
+        TableState state = getTableState(bean);
+        for (Number id : idList) {
+            if (id != null && !state.resultMap.containsKey(id.longValue()) && state.pendingIdSet.add(id.longValue())) {
+                loadCount++;
+            }
+        }
+        List<T> resultList = new ArrayList<T>(idList.size());
+        for (Number id : idList) {
+            T result = get(bean, id);
+            if (result != null) {
+                resultList.add(result);
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * Query all the registered ids which are not loaded yet.
+     *
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public void dispatch() throws SQLException {
+        for (TableState state : tableStateMap.values()) {
+            dispatch(state.bean, state);
+        }
+    }
+
+    /**
+     * Get the count of the requested ids, include the duplicated ones.
+     *
+     * @return count of the requested ids
+     * @since 2.7
+     */
+    public int getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Get the count of the executed queries.
+     *
+     * @return count of the executed queries
+     * @since 2.7
+     */
+    public int getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * Get the count of the queries saved compared with querying each id by {@link BaseDao#selectTableById(BaseBean)}.
+     *
+     * @return count of the saved queries
+     * @since 2.7
+     */
+    public int getSavedQueryCount() {
+        return Math.max(0, loadCount - queryCount);
+    }
+
+    /**
+     * Get the loading state of the table of the bean.
+     *
+     * @param bean bean object
+     * @return the loading state
+     * @since 2.7
+     */
+    private TableState getTableState(BaseBean bean) {
+        return tableStateMap.computeIfAbsent(bean.tableName(), k -> new TableState(bean));
+    }
+
+    /**
+     * Query the registered ids of the table in batches of max batch size, the ids not found are saved as {@code null}.
+     *
+     * @param bean  bean object
+     * @param state the loading state of the table
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    private void dispatch(BaseBean bean, TableState state) throws SQLException {
+        List<Long> idList = new ArrayList<Long>(state.pendingIdSet);
+        state.pendingIdSet.clear();
+        for (int start = 0, size = idList.size(); start < size; start += maxBatchSize) {
+            List<Long> batchIdList = idList.subList(start, Math.min(size, start + maxBatchSize));
+            List<? extends BaseBean> resultList = BaseDao.selectTableByIdList(bean, batchIdList);
+            queryCount++;
+            for (Long id : batchIdList) {
+                state.resultMap.put(id, null);
+            }
+            for (BaseBean result : resultList) {
+                Object id = result.columnMap(false).get("id");
+                if (id instanceof Number) {
+                    state.resultMap.put(((Number) id).longValue(), result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loading state of a table.
+     *
+     * @since 2.7
+     */
+    private static class TableState {
+
+        private final BaseBean bean;
+
+        private final Set<Long> pendingIdSet = new LinkedHashSet<Long>();
+
+        private final Map<Long, BaseBean> resultMap = new HashMap<Long, BaseBean>();
+
+        private TableState(BaseBean bean) {
+            this.bean = bean;
+        }
+    }
+
+}
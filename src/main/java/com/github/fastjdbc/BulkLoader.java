@@ -0,0 +1,319 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Bulk load of beans by {@code LOAD DATA LOCAL INFILE}, much faster than
+ * {@link BaseDao#batchInsertIntoTable(List)} for large imports.</p>
+ * <p>The beans are encoded to tab separated rows lazily while the driver reads the stream, so neither a temp file
+ * nor the whole data in memory is needed, and the beans can be produced by an iterator as well.
+ * The columns are the properties of {@link BaseBean#columnMap(boolean)} except {@code id}, same as the batch insert,
+ * the tab, line break and backslash in values are escaped and {@code null} is loaded as {@code NULL}.
+ * The binary columns, which are the gid when {@link GidCodec#isBinary()} and the columns with {@code byte[]} value
+ * in the given bean, are loaded as hex into user variables and decoded by {@code UNHEX}, as the raw bytes are not
+ * valid in the {@code utf8mb4} stream.</p>
+ * <pre>{@code
+ * int count = BulkLoader.loadIntoTable(new Test(), testIterator);
+ * }</pre>
+ * <p>Note: it needs the MySQL Connector/J 8 driver with {@code allowLoadLocalInfile=true} in the jdbc url and
+ * {@code local_infile=ON} on the server. It uses the connection of current thread and is in its transaction.
+ * With {@code LOCAL} the server turns the bad values and duplicate keys to warnings and skips the rows,
+ * so compare the returned count with the expected one, the warnings are logged.</p>
+ *
+ * @since 2.7
+ */
+public class BulkLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkLoader.class);
+
+    /**
+     * Count of the warnings to log after a load.
+     *
+     * @since 2.7
+     */
+    private static final int LOG_WARNING_COUNT = 10;
+
+    /**
+     * Load the bean list into the table.
+     *
+     * @param list list of bean object
+     * @param <T>  {@link BaseBean} type class
+     * @return count of loaded rows
+     * @throws SQLException exception when load
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int loadIntoTable(List<T> list) throws SQLException {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        return loadIntoTable(list.get(0), list.iterator());
+    }
+
+    /**
+     * Load the beans of the iterator into the table, the beans are taken from the iterator while loading.
+     *
+     * @param bean     bean object to get the table name and columns, the columns with {@code byte[]} value are binary
+     * @param iterator iterator of the beans to load
+     * @param <T>      {@link BaseBean} type class
+     * @return count of loaded rows
+     * @throws SQLException exception when load
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> int loadIntoTable(T bean, Iterator<? extends T> iterator) throws SQLException {
+        Connection connection = ConnectionPool.CONNECTION_POOL.get();
+        if (connection == null || connection.isClosed() || connection.isReadOnly()) {
+            throw new RuntimeException("connection object must not null and not closed and not read only");
+        }
+        Map<String, Object> allColumnMap = bean.columnMap(true);
+        List<String> columnList = new ArrayList<String>(allColumnMap.keySet());
+        columnList.remove("id");
+        boolean[] binaryColumns = new boolean[columnList.size()];
+        List<String> fieldList = new ArrayList<String>(columnList.size());
+        List<String> setList = new ArrayList<String>();
+        for (int i = 0, size = columnList.size(); i < size; i++) {
+            String column = columnList.get(i);
+            binaryColumns[i] = "gid".equals(column) ? GidCodec.isBinary() : allColumnMap.get(column) instanceof byte[];
+            if (binaryColumns[i]) {
+                fieldList.add("@" + column);
+                setList.add(column + " = UNHEX(@" + column + ")");
+            } else {
+                fieldList.add(column);
+            }
+        }
+        String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + bean.tableName()
+                + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' ("
+                + String.join(", ", fieldList) + ")" + (setList.isEmpty() ? "" : " SET " + String.join(", ", setList));
+        WriteBuffer.flush(sql);
+        try (Statement stmt = connection.createStatement()) {
+            LOGGER.debug(sql);
+            QueryDetector.record(sql);
+            setLocalInfileInputStream(stmt, new TsvInputStream(iterator, columnList, binaryColumns));
+            QueryTimeout.start(stmt);
+            int count;
+            try {
+                count = stmt.executeUpdate(sql);
+            } finally {
+                QueryTimeout.finish();
+            }
+            logWarnings(sql, stmt.getWarnings());
+            return count;
+        } catch (SQLException e) {
+            LOGGER.error("JDBC error sql: {}", sql);
+            throw e;
+        }
+    }
+
+    /**
+     * Set the stream of the local file to the statement of MySQL Connector/J 8 driver by reflection,
+     * as the driver is not a compile dependency.
+     *
+     * @param stmt        statement to execute the load
+     * @param inputStream stream of the local file
+     * @throws SQLException exception when unwrap the statement
+     * @since 2.7
+     */
+    private static void setLocalInfileInputStream(Statement stmt, InputStream inputStream) throws SQLException {
+        try {
+            Class<?> statementClass = Class.forName("com.mysql.cj.jdbc.JdbcStatement");
+            Object mysqlStatement = stmt.unwrap(statementClass);
+            statementClass.getMethod("setLocalInfileInputStream", InputStream.class).invoke(mysqlStatement, inputStream);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("bulk load needs MySQL Connector/J 8 driver", e);
+        }
+    }
+
+    /**
+     * Log the first warnings of the load.
+     *
+     * @param sql     the load sql
+     * @param warning the first warning of the statement
+     * @since 2.7
+     */
+    private static void logWarnings(String sql, SQLWarning warning) {
+        for (int i = 0; warning != null && i < LOG_WARNING_COUNT; i++) {
+            LOGGER.warn("Bulk load warning: {}, sql: {}", warning.getMessage(), sql);
+            warning = warning.getNextWarning();
+        }
+    }
+
+    /**
+     * A stream of the tab separated rows, it encodes the beans of the iterator when the buffer is read out.
+     *
+     * @since 2.7
+     */
+    private static class TsvInputStream extends InputStream {
+
+        /**
+         * Size of the buffer to fill each time, a row larger than it grows the buffer.
+         *
+         * @since 2.7
+         */
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        /**
+         * Digits of the hex of the binary values.
+         *
+         * @since 2.7
+         */
+        private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private final Iterator<? extends BaseBean> iterator;
+
+        private final List<String> columnList;
+
+        private final boolean[] binaryColumns;
+
+        private byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int position;
+
+        private int limit;
+
+        TsvInputStream(Iterator<? extends BaseBean> iterator, List<String> columnList, boolean[] binaryColumns) {
+            this.iterator = iterator;
+            this.columnList = columnList;
+            this.binaryColumns = binaryColumns;
+        }
+
+        @Override
+        public int read() {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Encode the next rows to the buffer until the buffer is full or the iterator is exhausted.
+         *
+         * @return {@code false} when no more row
+         * @since 2.7
+         */
+        @SuppressWarnings("unchecked")
+        private boolean fill() {
+            position = 0;
+            limit = 0;
+            while (limit < BUFFER_SIZE && iterator.hasNext()) {
+                Map<String, Object> columnMap = iterator.next().columnMap(true);
+                for (int i = 0, size = columnList.size(); i < size; i++) {
+                    if (i > 0) {
+                        write('\t');
+                    }
+                    String column = columnList.get(i);
+                    writeValue(column, "gid".equals(column) ? GidCodec.encode(columnMap.get(column)) : columnMap.get(column), binaryColumns[i]);
+                }
+                write('\n');
+            }
+            return limit > 0;
+        }
+
+        private void writeValue(String column, Object value, boolean binary) {
+            if (value == null) {
+                write('\\');
+                write('N');
+                return;
+            }
+            if (value instanceof byte[]) {
+                if (!binary) {
+                    throw new RuntimeException("column " + column + " has byte[] value but is not binary in the bean to load");
+                }
+                for (byte b : (byte[]) value) {
+                    write(HEX_DIGITS[(b >> 4) & 0xF]);
+                    write(HEX_DIGITS[b & 0xF]);
+                }
+                return;
+            }
+            byte[] bytes;
+            if (value instanceof Boolean) {
+                bytes = (Boolean) value ? new byte[]{'1'} : new byte[]{'0'};
+            } else if (value instanceof BigDecimal) {
+                bytes = ((BigDecimal) value).toPlainString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            // the value is utf-8 text here, the bytes of its multi-byte characters are all above 0x7F,
+            // so escaping by byte never splits a character
+            for (byte b : bytes) {
+                switch (b) {
+                    case 0:
+                        write('\\');
+                        write('0');
+                        break;
+                    case '\t':
+                        write('\\');
+                        write('t');
+                        break;
+                    case '\n':
+                        write('\\');
+                        write('n');
+                        break;
+                    case '\r':
+                        write('\\');
+                        write('r');
+                        break;
+                    case '\\':
+                        write('\\');
+                        write('\\');
+                        break;
+                    default:
+                        write(b);
+                }
+            }
+        }
+
+        private void write(int b) {
+            if (limit == buffer.length) {
+                byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                buffer = newBuffer;
+            }
+            buffer[limit++] = (byte) b;
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Admission control of a datasource: limits the concurrent units of work and the waiting ones.</p>
+ * <p>When all the permits are used, at most {@code maxWaiting} threads wait for {@code maxWaitMillis}, the others
+ * are rejected at once by {@link SQLTransientConnectionException}. So the threads will not pile up in the connection pool
+ * when the database slows down.</p>
+ * <p>Set by {@link ConnectionPool#setBulkhead(String, int, int, long)}, the permit is acquired when the connection
+ * is got and released when it's closed.</p>
+ *
+ * @since 2.7
+ */
+public class Bulkhead {
+
+    /**
+     * Max concurrent units of work.
+     *
+     * @since 2.7
+     */
+    private final int maxConcurrent;
+
+    /**
+     * Max waiting threads.
+     *
+     * @since 2.7
+     */
+    private final int maxWaiting;
+
+    /**
+     * Max waiting time in milliseconds.
+     *
+     * @since 2.7
+     */
+    private final long maxWaitMillis;
+
+    /**
+     * Permits of the concurrent units of work.
+     *
+     * @since 2.7
+     */
+    private final Semaphore permits;
+
+    /**
+     * Count of the waiting threads.
+     *
+     * @since 2.7
+     */
+    private final AtomicInteger waitingCount = new AtomicInteger();
+
+    /**
+     * Count of the rejected threads.
+     *
+     * @since 2.7
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    Bulkhead(int maxConcurrent, int maxWaiting, long maxWaitMillis) {
+        if (maxConcurrent < 1) {
+            throw new RuntimeException("max concurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Acquire a permit, wait when the waiting queue is not full.
+     *
+     * @throws SQLException {@link SQLTransientConnectionException} when rejected
+     * @since 2.7
+     */
+    void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waitingCount.incrementAndGet() > maxWaiting) {
+            waitingCount.decrementAndGet();
+            rejectedCount.increment();
+            throw new SQLTransientConnectionException("bulkhead rejected, waiting queue is full");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedCount.increment();
+            throw new SQLTransientConnectionException("bulkhead rejected, wait timeout");
+        }
+    }
+
+    /**
+     * Release a permit.
+     *
+     * @since 2.7
+     */
+    void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Get the count of the units of work which hold a permit.
+     *
+     * @return count of the active units of work
+     * @since 2.7
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Get the count of the waiting threads, the depth of waiting queue.
+     *
+     * @return count of the waiting threads
+     * @since 2.7
+     */
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * Get the count of the rejected threads.
+     *
+     * @return count of the rejected threads
+     * @since 2.7
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{" +
+                "maxConcurrent=" + maxConcurrent +
+                ", maxWaiting=" + maxWaiting +
+                ", maxWaitMillis=" + maxWaitMillis +
+                ", activeCount=" + getActiveCount() +
+                ", waitingCount=" + getWaitingCount() +
+                ", rejectedCount=" + getRejectedCount() +
+                '}';
+    }
+}
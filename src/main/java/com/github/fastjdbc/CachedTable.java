@@ -0,0 +1,681 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.Collator;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>An in-memory replica of a small table, such as a dictionary table, to take the hot reads off the database.</p>
+ * <p>The whole table is loaded from the slave pool to an immutable snapshot with the index of {@code id} and
+ * the given columns. {@link #refresh()} queries {@code MAX(update_time)} and {@code COUNT(1)} of the table and
+ * reloads only when they changed, the new snapshot replaces the old one atomically, so the readers never see
+ * a partial table. It can be called periodically by {@link #start(long)}.</p>
+ * <p>After {@link #register(CachedTable)}, {@link BaseDao#selectTableById(BaseBean)} and
+ * {@link BaseDao#selectTableByBean(BaseBean)} of the table in a read only connection are answered by the snapshot
+ * without query, the reads in a write connection still query the master pool to see their own writes.</p>
+ * <p>The snapshot keeps the column values read from the database, and each read builds new beans from them
+ * by {@link BaseBean#beanFromResultSet(ResultSet)}, so the caller can modify and update the returned beans
+ * same as the queried ones. The strings are compared by the collator, case and accent insensitive by default
+ * like the {@code utf8mb4_0900_ai_ci} collation, set {@code null} for the binary collations.</p>
+ * <pre>{@code
+ * CachedTable<Test> cachedTable = new CachedTable<Test>(new Test(), "slave", List.of("test_dictionary"));
+ * cachedTable.start(10000);
+ * CachedTable.register(cachedTable);
+ * }</pre>
+ * <p>Note: the change detection relies on {@code update_time} being set by every update, a change in the same second
+ * of the last max {@code update_time} without changing the count is found by the next change or {@link #reload()}.
+ * Add {@code useLocalSessionState=true} to the url of mysql driver to check read only connection without query.</p>
+ *
+ * @param <T> {@link BaseBean} type class
+ * @since 2.7
+ */
+public class CachedTable<T extends BaseBean> {
+
+    /**
+     * The logger facade.
+     *
+     * @since 2.7
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedTable.class);
+
+    /**
+     * The registered cached tables, key is table name.
+     *
+     * @since 2.7
+     */
+    private static final Map<String, CachedTable<?>> CACHED_TABLE_MAP = new ConcurrentHashMap<String, CachedTable<?>>();
+
+    /**
+     * Bean object to get the table name and the beans.
+     *
+     * @since 2.7
+     */
+    private final T bean;
+
+    /**
+     * Slave pool name to load the table, {@code null} for master pool.
+     *
+     * @since 2.7
+     */
+    private final String slavePoolName;
+
+    /**
+     * Columns to index besides {@code id}.
+     *
+     * @since 2.7
+     */
+    private final List<String> indexColumnList;
+
+    /**
+     * Collator to compare the strings, {@code null} to compare them exactly.
+     *
+     * @since 2.7
+     */
+    private volatile Collator collator;
+
+    /**
+     * The current snapshot, {@code null} before loaded.
+     *
+     * @since 2.7
+     */
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * Count of the loads.
+     *
+     * @since 2.7
+     */
+    private volatile long loadCount;
+
+    /**
+     * The scheduler to refresh periodically.
+     *
+     * @since 2.7
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a cached table loaded from the given slave pool.
+     *
+     * @param bean            bean object to get the table name and the beans
+     * @param slavePoolName   slave pool name to load the table, {@code null} for master pool
+     * @param indexColumnList columns to index besides {@code id}, the query by the bean with any of them set
+     *                        scans only the rows of the index
+     * @since 2.7
+     */
+    public CachedTable(T bean, String slavePoolName, List<String> indexColumnList) {
+        this.bean = bean;
+        this.slavePoolName = slavePoolName;
+        this.indexColumnList = indexColumnList == null ? Collections.emptyList() : List.copyOf(indexColumnList);
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        this.collator = collator;
+    }
+
+    /**
+     * Register the cached table to answer the reads of {@link BaseDao} in read only connections,
+     * it's loaded first when not loaded.
+     *
+     * @param cachedTable cached table object
+     * @throws Exception exception when load failed
+     * @since 2.7
+     */
+    public static void register(CachedTable<?> cachedTable) throws Exception {
+        if (cachedTable.snapshot == null) {
+            cachedTable.reload();
+        }
+        CACHED_TABLE_MAP.put(cachedTable.bean.tableName(), cachedTable);
+    }
+
+    /**
+     * Unregister the cached table of the given table name, the reads of {@link BaseDao} query the database again.
+     *
+     * @param tableName table name
+     * @return the unregistered cached table, {@code null} when not registered
+     * @since 2.7
+     */
+    public static CachedTable<?> unregister(String tableName) {
+        return CACHED_TABLE_MAP.remove(tableName);
+    }
+
+    /**
+     * Get the registered cached table of the given table name.
+     *
+     * @param tableName table name
+     * @return the cached table, {@code null} when not registered
+     * @since 2.7
+     */
+    public static CachedTable<?> getCachedTable(String tableName) {
+        return CACHED_TABLE_MAP.get(tableName);
+    }
+
+    /**
+     * Get the registered cached table to answer the read of the bean, only when the connection of current thread
+     * is read only and the cached table holds the same class of the bean.
+     *
+     * @param bean bean object
+     * @param <T>  {@link BaseBean} type class
+     * @return the cached table, {@code null} when the read should query the database
+     * @throws SQLException exception when check the connection
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends BaseBean> CachedTable<T> getReadable(T bean) throws SQLException {
+        if (CACHED_TABLE_MAP.isEmpty()) {
+            return null;
+        }
+        CachedTable<?> cachedTable = CACHED_TABLE_MAP.get(bean.tableName());
+        if (cachedTable == null || cachedTable.bean.getClass() != bean.getClass()) {
+            return null;
+        }
+        Connection connection = ConnectionPool.CONNECTION_POOL.get();
+        if (connection == null || !connection.isReadOnly()) {
+            return null;
+        }
+        return (CachedTable<T>) cachedTable;
+    }
+
+    /**
+     * <p>Reload the table when {@code MAX(update_time)} or {@code COUNT(1)} changed since the last load.</p>
+     * <p>It gets its own connection, so it should be called when current thread has no connection.</p>
+     *
+     * @return true when reloaded
+     * @throws Exception exception when query failed, the current snapshot is kept
+     * @since 2.7
+     */
+    public synchronized boolean refresh() throws Exception {
+        Snapshot<T> current = snapshot;
+        if (current != null) {
+            Object[] version = ConnectionPool.callInConnection(slavePoolName, this::queryVersion);
+            if (Objects.equals(version[0], current.maxUpdateTime) && Objects.equals(version[1], current.count)) {
+                return false;
+            }
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * <p>Load the whole table and replace the snapshot.</p>
+     * <p>It gets its own connection, so it should be called when current thread has no connection.</p>
+     *
+     * @throws Exception exception when query failed, the current snapshot is kept
+     * @since 2.7
+     */
+    public synchronized void reload() throws Exception {
+        Snapshot<T> newSnapshot = ConnectionPool.callInConnection(slavePoolName, () -> {
+            Object[] version = queryVersion();
+            return loadSnapshot(version[0], (Long) version[1]);
+        });
+        snapshot = newSnapshot;
+        loadCount++;
+        LOGGER.info("Cached table {} loaded {} rows", bean.tableName(), newSnapshot.rowList.size());
+    }
+
+    /**
+     * Start to refresh periodically in a daemon thread.
+     *
+     * @param periodMillis the period between two refreshes in milliseconds
+     * @since 2.7
+     */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fastjdbc-cached-table-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                LOGGER.error("Refresh cached table {} failed", bean.tableName(), e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop refreshing periodically.
+     *
+     * @since 2.7
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Get the bean by the id of the param bean from the snapshot.
+     *
+     * @param bean bean object with id
+     * @return a new bean of the row, {@code null} when not found
+     * @throws SQLException exception when build the bean
+     * @since 2.7
+     */
+    public T selectTableById(T bean) throws SQLException {
+        Snapshot<T> current = getSnapshot();
+        Row row = current.idMap.get(matchKey(bean.columnMap(false).get("id"), current.collator));
+        return row == null ? null : current.toBean(row);
+    }
+
+    /**
+     * Get the beans by the param bean from the snapshot, match all the not null properties equals
+     * same as {@link BaseDao#selectTableByBean(BaseBean)}.
+     *
+     * @param bean the param bean
+     * @return new beans of the matched rows in the order of loading
+     * @throws SQLException exception when build the beans
+     * @throws RuntimeException when the param bean has no not null property
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> selectTableByBean(T bean) throws SQLException {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        if (columnMap.isEmpty()) {
+            throw new RuntimeException("param bean of table " + bean.tableName() + " must have not null property");
+        }
+        Snapshot<T> current = getSnapshot();
+        Map<String, Object> matchMap = new HashMap<String, Object>(columnMap.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> entry : columnMap.entrySet()) {
+            matchMap.put(entry.getKey(), matchKey(entry.getValue(), current.collator));
+        }
+        List<Row> candidateList = current.rowList;
+        for (Map.Entry<String, Map<Object, List<Row>>> entry : current.indexMap.entrySet()) {
+            if (matchMap.containsKey(entry.getKey())) {
+                candidateList = entry.getValue().getOrDefault(matchMap.get(entry.getKey()), Collections.emptyList());
+                break;
+            }
+        }
+        List<T> list = new ArrayList<T>();
+        for (Row row : candidateList) {
+            if (row.matches(matchMap)) {
+                list.add(current.toBean(row));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the count of the rows in the snapshot.
+     *
+     * @return count of the rows
+     * @since 2.7
+     */
+    public int getRowCount() {
+        return getSnapshot().rowList.size();
+    }
+
+    /**
+     * Get the count of the loads, it increases only when the table changed after the first load.
+     *
+     * @return count of the loads
+     * @since 2.7
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public Collator getCollator() {
+        return collator;
+    }
+
+    /**
+     * Set the collator to compare the strings, it takes effect from the next load.
+     *
+     * @param collator collator same as the collation of the columns, {@code null} to compare the strings exactly
+     * @return this cached table
+     * @since 2.7
+     */
+    public CachedTable<T> setCollator(Collator collator) {
+        this.collator = collator;
+        return this;
+    }
+
+    /**
+     * Get the current snapshot.
+     *
+     * @return the current snapshot
+     * @since 2.7
+     */
+    private Snapshot<T> getSnapshot() {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            throw new RuntimeException("cached table " + bean.tableName() + " is not loaded");
+        }
+        return current;
+    }
+
+    /**
+     * Query {@code MAX(update_time)} and {@code COUNT(1)} of the table in the connection of current thread.
+     *
+     * @return the max update time and the count
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    private Object[] queryVersion() throws SQLException {
+        ResultSet rs = null;
+        try {
+            rs = BaseDao.executeSelectReturnResultSet("SELECT MAX(update_time), COUNT(1) FROM " + bean.tableName(), null);
+            rs.next();
+            return new Object[]{rs.getObject(1), rs.getLong(2)};
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * Read the whole table into a new snapshot in the connection of current thread.
+     *
+     * @param maxUpdateTime max update time of the table
+     * @param count         count of the rows of the table
+     * @return the new snapshot
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private Snapshot<T> loadSnapshot(Object maxUpdateTime, Long count) throws SQLException {
+        Collator currentCollator = collator;
+        ResultSet rs = null;
+        try {
+            rs = BaseDao.executeSelectReturnResultSet("SELECT * FROM " + bean.tableName(), null);
+            ResultSetMetaData metaData = rs.getMetaData();
+            Map<String, Integer> labelIndexMap = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = metaData.getColumnCount(); i > 0; i--) {
+                labelIndexMap.put(metaData.getColumnLabel(i), i);
+            }
+            List<Row> rowList = new ArrayList<Row>(count == null ? 16 : count.intValue());
+            while (rs.next()) {
+                Object[] values = new Object[labelIndexMap.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                Map<String, Object> matchMap = new HashMap<String, Object>();
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) bean.beanFromResultSet(rs).columnMap(true)).entrySet()) {
+                    matchMap.put(entry.getKey(), matchKey(entry.getValue(), currentCollator));
+                }
+                rowList.add(new Row(values, matchMap));
+            }
+            return new Snapshot<T>(bean, rowList, labelIndexMap, indexColumnList, currentCollator, maxUpdateTime, count);
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * Key of the value to match and index, the {@link BigDecimal} values are stripped so the scale does not matter,
+     * and the strings are replaced by the collation keys.
+     *
+     * @param value    column value
+     * @param collator collator to compare the strings, {@code null} to compare them exactly
+     * @return match key
+     * @since 2.7
+     */
+    private static Object matchKey(Object value, Collator collator) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        }
+        if (value instanceof String && collator != null) {
+            return collator.getCollationKey((String) value);
+        }
+        return value;
+    }
+
+    /**
+     * An immutable snapshot of the table with the indexes.
+     *
+     * @param <T> {@link BaseBean} type class
+     * @since 2.7
+     */
+    private static class Snapshot<T extends BaseBean> {
+
+        private final T bean;
+
+        private final List<Row> rowList;
+
+        private final Map<String, Integer> labelIndexMap;
+
+        private final Map<Object, Row> idMap;
+
+        private final Map<String, Map<Object, List<Row>>> indexMap;
+
+        private final Collator collator;
+
+        private final Object maxUpdateTime;
+
+        private final Long count;
+
+        private Snapshot(T bean, List<Row> rowList, Map<String, Integer> labelIndexMap, List<String> indexColumnList,
+                         Collator collator, Object maxUpdateTime, Long count) {
+            Map<Object, Row> idMap = new HashMap<Object, Row>(rowList.size() * 4 / 3 + 1);
+            Map<String, Map<Object, List<Row>>> indexMap = new HashMap<String, Map<Object, List<Row>>>();
+            for (String column : indexColumnList) {
+                indexMap.put(column, new HashMap<Object, List<Row>>());
+            }
+            for (Row row : rowList) {
+                idMap.put(row.matchMap.get("id"), row);
+                for (Map.Entry<String, Map<Object, List<Row>>> entry : indexMap.entrySet()) {
+                    entry.getValue().computeIfAbsent(row.matchMap.get(entry.getKey()), k -> new ArrayList<Row>()).add(row);
+                }
+            }
+            this.bean = bean;
+            this.rowList = Collections.unmodifiableList(rowList);
+            this.labelIndexMap = labelIndexMap;
+            this.idMap = idMap;
+            this.indexMap = indexMap;
+            this.collator = collator;
+            this.maxUpdateTime = maxUpdateTime;
+            this.count = count;
+        }
+
+        /**
+         * Build a new bean of the row.
+         *
+         * @param row row of the snapshot
+         * @return the new bean
+         * @throws SQLException exception when build the bean
+         * @since 2.7
+         */
+        private T toBean(Row row) throws SQLException {
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new RowResultSet(labelIndexMap, row.values));
+            return BaseDao.beanFromResultSet(bean, rs);
+        }
+    }
+
+    /**
+     * A row of the snapshot: the column values read from the database and the match keys of the bean columns.
+     *
+     * @since 2.7
+     */
+    private static class Row {
+
+        private final Object[] values;
+
+        private final Map<String, Object> matchMap;
+
+        private Row(Object[] values, Map<String, Object> matchMap) {
+            this.values = values;
+            this.matchMap = matchMap;
+        }
+
+        private boolean matches(Map<String, Object> paramMatchMap) {
+            for (Map.Entry<String, Object> entry : paramMatchMap.entrySet()) {
+                if (!Objects.equals(entry.getValue(), matchMap.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A read only {@link ResultSet} of a row for {@link BaseBean#beanFromResultSet(ResultSet)}, only the getters
+     * of the column values and {@code wasNull} are supported, the values are converted as the driver does.
+     *
+     * @since 2.7
+     */
+    private static class RowResultSet implements InvocationHandler {
+
+        private final Map<String, Integer> labelIndexMap;
+
+        private final Object[] values;
+
+        private boolean wasNull;
+
+        private RowResultSet(Map<String, Integer> labelIndexMap, Object[] values) {
+            this.labelIndexMap = labelIndexMap;
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+            String name = method.getName();
+            if ("wasNull".equals(name)) {
+                return wasNull;
+            }
+            if (!name.startsWith("get") || args == null || args.length == 0) {
+                throw new SQLFeatureNotSupportedException("ResultSet." + name + " is not supported by cached table");
+            }
+            Object value = values[columnIndex(args[0]) - 1];
+            wasNull = value == null;
+            Class<?> type = args.length == 2 && args[1] instanceof Class ? (Class<?>) args[1] : method.getReturnType();
+            return convert(value, type);
+        }
+
+        private int columnIndex(Object column) throws SQLException {
+            if (column instanceof Integer) {
+                int index = (Integer) column;
+                if (index >= 1 && index <= values.length) {
+                    return index;
+                }
+            } else {
+                Integer index = labelIndexMap.get(String.valueOf(column));
+                if (index != null) {
+                    return index;
+                }
+            }
+            throw new SQLException("column " + column + " not found");
+        }
+
+        private static Object convert(Object value, Class<?> type) throws SQLException {
+            if (value == null) {
+                if (type == boolean.class) {
+                    return false;
+                }
+                return type.isPrimitive() ? convert(0, type) : null;
+            }
+            if (type == Object.class || type.isInstance(value)) {
+                return value;
+            }
+            if (type == String.class) {
+                if (value instanceof byte[]) {
+                    return new String((byte[]) value, StandardCharsets.UTF_8);
+                }
+                return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                if (value instanceof Number) {
+                    return ((Number) value).intValue() != 0;
+                }
+                return "1".equals(value.toString()) || Boolean.parseBoolean(value.toString());
+            }
+            if (type == byte[].class) {
+                return value.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            if (value instanceof LocalDateTime && type == Timestamp.class) {
+                return Timestamp.valueOf((LocalDateTime) value);
+            }
+            if (value instanceof Timestamp && type == LocalDateTime.class) {
+                return ((Timestamp) value).toLocalDateTime();
+            }
+            if (value instanceof LocalDate && type == Date.class) {
+                return Date.valueOf((LocalDate) value);
+            }
+            if (value instanceof Date && type == LocalDate.class) {
+                return ((Date) value).toLocalDate();
+            }
+            if (value instanceof LocalTime && type == Time.class) {
+                return Time.valueOf((LocalTime) value);
+            }
+            if (value instanceof Time && type == LocalTime.class) {
+                return ((Time) value).toLocalTime();
+            }
+            BigDecimal number;
+            if (value instanceof Boolean) {
+                number = (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+            } else if (value instanceof BigDecimal) {
+                number = (BigDecimal) value;
+            } else if (value instanceof Number || value instanceof String) {
+                number = new BigDecimal(value.toString());
+            } else {
+                throw new SQLException("value of " + value.getClass().getName() + " can't be converted to " + type.getName());
+            }
+            if (type == BigDecimal.class) {
+                return number;
+            } else if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            } else if (type == long.class || type == Long.class) {
+                return number.longValue();
+            } else if (type == double.class || type == Double.class) {
+                return number.doubleValue();
+            } else if (type == float.class || type == Float.class) {
+                return number.floatValue();
+            } else if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            } else if (type == byte.class || type == Byte.class) {
+                return number.byteValue();
+            }
+            throw new SQLException("value of " + value.getClass().getName() + " can't be converted to " + type.getName());
+        }
+    }
+
+}
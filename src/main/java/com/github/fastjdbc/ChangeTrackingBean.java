@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>An optional base class of the database bean object which records the column values when loaded.</p>
+ * <p>The beans queried by {@link BaseDao} are snapshot automatically, then the changed columns since loaded
+ * can be got by {@link #changedColumnMap()}, include the columns which are set to {@code null}.
+ * {@link BaseDao#updateTableChangedById(ChangeTrackingBean)} updates only the changed columns and
+ * executes nothing when no column changed.</p>
+ * <p>The child bean should implement {@link BaseBean} methods as usual, eg:</p>
+ * <pre>{@code
+ * public class Test extends ChangeTrackingBean<Test> {
+ *     ...
+ * }
+ * }</pre>
+ *
+ * @param <T> a class which extends this
+ * @since 2.7
+ */
+public abstract class ChangeTrackingBean<T extends ChangeTrackingBean<T>> implements BaseBean<T> {
+
+    /**
+     * All the column values when loaded, {@code null} when the bean is not loaded from database.
+     *
+     * @since 2.7
+     */
+    private Map<String, Object> snapshot;
+
+    /**
+     * Record all the column values as the unchanged state.
+     *
+     * @return this bean
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public T snapshot() {
+        this.snapshot = columnMap(true);
+        return (T) this;
+    }
+
+    /**
+     * Whether the column values are recorded.
+     *
+     * @return true when recorded by {@link #snapshot()}
+     * @since 2.7
+     */
+    public boolean isTracked() {
+        return snapshot != null;
+    }
+
+    /**
+     * Whether any column changed since the last snapshot, when not tracked it's true when any column is not {@code null}.
+     *
+     * @return true when changed
+     * @since 2.7
+     */
+    public boolean isChanged() {
+        return !changedColumnMap().isEmpty();
+    }
+
+    /**
+     * <p>Get the changed columns since the last snapshot, the value may be {@code null} when the column is set to {@code null}.</p>
+     * <p>When not tracked, all the not null columns are returned, same as {@link #columnMap(boolean)} with {@code false}.</p>
+     *
+     * @return map of changed columns, key is column name, value is the current value
+     * @since 2.7
+     */
+    public Map<String, Object> changedColumnMap() {
+        if (snapshot == null) {
+            return columnMap(false);
+        }
+        Map<String, Object> currentMap = columnMap(true);
+        Map<String, Object> changedMap = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : currentMap.entrySet()) {
+            if (!isSameValue(snapshot.get(entry.getKey()), entry.getValue())) {
+                changedMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changedMap;
+    }
+
+    /**
+     * Replace the recorded value of the column, used when the column is changed by database, such as {@code version}.
+     *
+     * @param column column name
+     * @param value  the value in database
+     * @since 2.7
+     */
+    void snapshotValue(String column, Object value) {
+        if (snapshot != null) {
+            snapshot.put(column, value);
+        }
+    }
+
+    /**
+     * Get the value of the column when the last snapshot, or the current value when not tracked.
+     *
+     * @param column column name
+     * @return the original value
+     * @since 2.7
+     */
+    public Object originalValue(String column) {
+        return snapshot == null ? columnMap(false).get(column) : snapshot.get(column);
+    }
+
+    /**
+     * Compare two column values, {@link BigDecimal} is compared without scale and byte array is compared by content,
+     * it's shared with the merge of {@link BaseDao} to find the changed columns.
+     *
+     * @param oldValue old value
+     * @param newValue new value
+     * @return true when same
+     * @since 2.7
+     */
+    static boolean isSameValue(Object oldValue, Object newValue) {
+        if (oldValue instanceof BigDecimal && newValue instanceof BigDecimal) {
+            return ((BigDecimal) oldValue).compareTo((BigDecimal) newValue) == 0;
+        }
+        if (oldValue instanceof byte[] && newValue instanceof byte[]) {
+            return Arrays.equals((byte[]) oldValue, (byte[]) newValue);
+        }
+        return Objects.equals(oldValue, newValue);
+    }
+
+}
@@ -17,12 +17,19 @@
 package com.github.fastjdbc;
 
 import javax.sql.DataSource;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>A connection pool class.</p>
@@ -61,6 +68,34 @@ public class ConnectionPool {
      */
     static final ThreadLocal<Connection> CONNECTION_POOL = new ThreadLocal<Connection>();
 
+    /**
+     * Admission control of each datasource, key is datasource object.
+     *
+     * @since 2.7
+     */
+    private static final Map<DataSource, Bulkhead> BULKHEAD_MAP = new ConcurrentHashMap<DataSource, Bulkhead>();
+
+    /**
+     * The bulkhead which permit is acquired by the connection of each thread.
+     *
+     * @since 2.7
+     */
+    private static final ThreadLocal<Bulkhead> ACQUIRED_BULKHEAD = new ThreadLocal<Bulkhead>();
+
+    /**
+     * Pool size used when the maximum size of a {@link DataSource} can not be detected.
+     *
+     * @since 2.7
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Getter names of the maximum pool size in common {@link DataSource} implementations(HikariCP, DBCP2, Druid, Tomcat).
+     *
+     * @since 2.7
+     */
+    private static final String[] POOL_SIZE_GETTERS = {"getMaximumPoolSize", "getMaxTotal", "getMaxActive"};
+
     /**
      * <p>Initialization method for init global connection pool.</p>
      *
@@ -95,32 +130,224 @@ public class ConnectionPool {
         return POOL_MAP.getOrDefault(poolName, DEFAULT_SLAVE_POOL);
     }
 
+    /**
+     * <p>Get the datasource which {@link #getConnection(String)} will use for the given slave pool name.</p>
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @return datasource object
+     * @since 2.7
+     */
+    static DataSource getDataSource(String slavePoolName) {
+        if (MASTER_POOL == null) {
+            throw new RuntimeException("connection pool must init before use");
+        }
+        return slavePoolName == null ? MASTER_POOL : getSlaveDataSource(slavePoolName);
+    }
+
+    /**
+     * <p>Get all the distinct datasource objects, include the master pool, all the slave pools
+     * and all the datasource objects of {@link ShardRouter}.</p>
+     *
+     * @return set of datasource object
+     * @since 2.7
+     */
+    static Set<DataSource> getAllDataSource() {
+        Set<DataSource> dataSourceSet = Collections.newSetFromMap(new IdentityHashMap<DataSource, Boolean>());
+        dataSourceSet.add(getDataSource(null));
+        dataSourceSet.add(DEFAULT_SLAVE_POOL);
+        dataSourceSet.addAll(POOL_MAP.values());
+        dataSourceSet.addAll(ShardRouter.getAllDataSource());
+        return dataSourceSet;
+    }
+
+    /**
+     * <p>Get all the slave pool names, the list is empty when no slave pool configured.</p>
+     *
+     * @return list of slave pool name
+     * @since 2.7
+     */
+    static List<String> getSlavePoolNameList() {
+        return new ArrayList<String>(POOL_MAP.keySet());
+    }
+
+    /**
+     * <p>Get the maximum connection count of the given datasource.</p>
+     * <p>The common getter names of pool implementations are detected, {@link #DEFAULT_POOL_SIZE} will be returned
+     * when none of them found.</p>
+     *
+     * @param dataSource datasource object
+     * @return maximum connection count
+     * @since 2.7
+     */
+    static int getMaximumPoolSize(DataSource dataSource) {
+        for (String getter : POOL_SIZE_GETTERS) {
+            try {
+                Method method = dataSource.getClass().getMethod(getter);
+                Object size = method.invoke(dataSource);
+                if (size instanceof Number && ((Number) size).intValue() > 0) {
+                    return ((Number) size).intValue();
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // try next getter
+            }
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    /**
+     * <p>Run the unit of work with a new connection bound to current thread.</p>
+     * <p>The connection is committed and closed when the work finished,
+     * or rolled back and closed when the work failed with any {@link Throwable}, the exceptions of rollback and close
+     * are added to the failure as suppressed, so the failure of the work is thrown as it is.</p>
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param callable      the unit of work
+     * @param <R>           the result type
+     * @return the result of the work
+     * @throws Exception exception when the work failed
+     * @since 2.7
+     */
+    static <R> R callInConnection(String slavePoolName, SqlCallable<R> callable) throws Exception {
+        return callInConnection(getDataSource(slavePoolName), slavePoolName != null, callable);
+    }
+
+    /**
+     * <p>Run the unit of work with a new connection of the given datasource bound to current thread,
+     * same as {@link #callInConnection(String, SqlCallable)}.</p>
+     *
+     * @param dataSource datasource object
+     * @param readOnly   true for a read connection, false for a write connection
+     * @param callable   the unit of work
+     * @param <R>        the result type
+     * @return the result of the work
+     * @throws Exception exception when the work failed
+     * @since 2.7
+     */
+    static <R> R callInConnection(DataSource dataSource, boolean readOnly, SqlCallable<R> callable) throws Exception {
+        if (CONNECTION_POOL.get() != null) {
+            throw new RuntimeException("current thread already has a connection");
+        }
+        getConnection(dataSource, readOnly);
+        try {
+            R result = callable.call();
+            close();
+            return result;
+        } catch (Throwable e) {
+            try {
+                rollback();
+            } catch (Throwable rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            try {
+                close();
+            } catch (Throwable closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
     /**
      * <p>Get {@link Connection} object by the given slave pool name.</p>
      * <p>When the slave pool name is null, the {@link Connection} object is from master pool.</p>
      * <p>When the slave pool name is not null, but not found in {@link #POOL_MAP}, the {@link #DEFAULT_SLAVE_POOL} will be used.</p>
+     * <p>When a {@link Bulkhead} is set for the pool, a permit is acquired before getting the connection.</p>
      *
      * @param slavePoolName slave pool name
-     * @throws SQLException exception when get connection failed
+     * @throws SQLException exception when get connection failed, {@link java.sql.SQLTransientConnectionException} when rejected by bulkhead
      * @since 1.0
      */
     public static void getConnection(String slavePoolName) throws SQLException {
+        if (CONNECTION_POOL.get() == null) {
+            getConnection(getDataSource(slavePoolName), slavePoolName != null);
+        }
+    }
+
+    /**
+     * <p>Get {@link Connection} object from the given datasource and bind it to current thread,
+     * the master pool or a datasource of {@link ShardRouter} for example.</p>
+     *
+     * @param dataSource datasource object
+     * @param readOnly   true for a read connection, false for a write connection
+     * @throws SQLException exception when get connection failed, {@link java.sql.SQLTransientConnectionException} when rejected by bulkhead
+     * @since 2.7
+     */
+    static void getConnection(DataSource dataSource, boolean readOnly) throws SQLException {
         Connection connection = CONNECTION_POOL.get();
         if (connection == null) {
-            if (slavePoolName == null) {
-                connection = MASTER_POOL.getConnection();
-                connection.setAutoCommit(false);
-                connection.setReadOnly(false);
-            } else {
-                connection = getSlaveDataSource(slavePoolName).getConnection();
-                connection.setReadOnly(true);
+            Bulkhead bulkhead = BULKHEAD_MAP.get(dataSource);
+            if (bulkhead != null) {
+                bulkhead.acquire();
+            }
+            try {
+                connection = dataSource.getConnection();
+                if (readOnly) {
+                    connection.setReadOnly(true);
+                } else {
+                    connection.setAutoCommit(false);
+                    connection.setReadOnly(false);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (bulkhead != null) {
+                    bulkhead.release();
+                }
+                if (connection != null) {
+                    connection.close();
+                }
+                throw e;
             }
             CONNECTION_POOL.set(connection);
+            if (bulkhead != null) {
+                ACQUIRED_BULKHEAD.set(bulkhead);
+            }
+            QueryDetector.begin();
         }
     }
 
+    /**
+     * <p>Set the admission control of the given pool, the units of work more than max concurrent will wait,
+     * and the waiting threads more than max waiting or wait longer than max wait time will be rejected.</p>
+     * <p>It takes effect for the connections got after this call.</p>
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @param maxConcurrent max concurrent units of work
+     * @param maxWaiting    max waiting threads
+     * @param maxWaitMillis max waiting time in milliseconds
+     * @since 2.7
+     */
+    public static void setBulkhead(String slavePoolName, int maxConcurrent, int maxWaiting, long maxWaitMillis) {
+        BULKHEAD_MAP.put(getDataSource(slavePoolName), new Bulkhead(maxConcurrent, maxWaiting, maxWaitMillis));
+    }
+
+    /**
+     * Get the admission control of the given pool for the metrics.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @return {@link Bulkhead} object, {@code null} when not set
+     * @since 2.7
+     */
+    public static Bulkhead getBulkhead(String slavePoolName) {
+        return BULKHEAD_MAP.get(getDataSource(slavePoolName));
+    }
+
+    /**
+     * <p>Get {@link Connection} object by the given slave pool name same as {@link #getConnection(String)},
+     * and set a deadline for all the statements executed before close.</p>
+     *
+     * @param slavePoolName slave pool name
+     * @param timeoutMillis timeout of the unit of work in milliseconds
+     * @throws SQLException exception when get connection failed
+     * @see QueryTimeout
+     * @since 2.7
+     */
+    public static void getConnection(String slavePoolName, long timeoutMillis) throws SQLException {
+        getConnection(slavePoolName);
+        QueryTimeout.begin(timeoutMillis);
+    }
+
     /**
      * Roll back the write connection when exception occurred and close both connection without commit.
+     * The pending updates of {@link WriteBuffer} are discarded.
      *
      * @throws SQLException exception when roll back failed
      * @since 1.0
@@ -129,17 +356,18 @@ public class ConnectionPool {
         Connection connection = CONNECTION_POOL.get();
         if (connection != null && !connection.isReadOnly()) {
             try {
+                WriteBuffer.discard();
                 connection.rollback();
             } finally {
-                connection.close();
+                closeConnection(connection);
                 connection = null;
-                CONNECTION_POOL.remove();
             }
         }
     }
 
     /**
      * Close the write connection with commit and close the read connection without commit.
+     * The pending updates of {@link WriteBuffer} are executed before commit.
      *
      * @throws SQLException exception when close failed
      * @since 2.2
@@ -149,12 +377,35 @@ public class ConnectionPool {
         if (connection != null) {
             try {
                 if (!connection.isReadOnly()) {
+                    WriteBuffer.flush();
                     connection.commit();
                 }
             } finally {
-                connection.close();
+                closeConnection(connection);
                 connection = null;
-                CONNECTION_POOL.remove();
+            }
+        }
+    }
+
+    /**
+     * Close the connection of current thread and clear all the states of the unit of work.
+     *
+     * @param connection the connection of current thread
+     * @throws SQLException exception when close failed
+     * @since 2.7
+     */
+    private static void closeConnection(Connection connection) throws SQLException {
+        try {
+            connection.close();
+        } finally {
+            CONNECTION_POOL.remove();
+            QueryDetector.end();
+            QueryTimeout.end();
+            WriteBuffer.discard();
+            Bulkhead bulkhead = ACQUIRED_BULKHEAD.get();
+            if (bulkhead != null) {
+                ACQUIRED_BULKHEAD.remove();
+                bulkhead.release();
             }
         }
     }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>An in-memory aggregator of counter increments.</p>
+ * <p>The increments are accumulated by table, column and id in {@link LongAdder} objects without lock,
+ * and flushed to the master pool in batches by {@link #flush()}, which can be called periodically by {@link #start(long)}.
+ * Thousands of increments of the same row become one {@code UPDATE ... SET c = c + ?} statement for each flush,
+ * and the counters drained by a flush are removed, so the memory is bounded by the rows incremented between flushes.</p>
+ * <pre>{@code
+ * CounterAggregator aggregator = new CounterAggregator();
+ * aggregator.start(1000);
+ * aggregator.increment(new Test(), "view_count", 1, 1L);
+ * }</pre>
+ * <p>Note: the increments not flushed yet are lost when the process exits without {@link #stop()}.
+ * {@link #flush()} gets its own connection of master pool, so it should be called when current thread has no connection.</p>
+ *
+ * @since 2.7
+ */
+public class CounterAggregator {
+
+    /**
+     * The logger facade.
+     *
+     * @since 2.7
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CounterAggregator.class);
+
+    /**
+     * Accumulated deltas, key is counter key, value is the delta not flushed yet.
+     *
+     * @since 2.7
+     */
+    private final Map<CounterKey, LongAdder> counterMap = new ConcurrentHashMap<CounterKey, LongAdder>();
+
+    /**
+     * The scheduler to flush periodically.
+     *
+     * @since 2.7
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Accumulate the delta of the number column of the row.
+     *
+     * @param bean   bean object
+     * @param column the number column to increase
+     * @param id     id of the row
+     * @param delta  the delta to add, a negative number to decrease
+     * @param <T>    {@link BaseBean} type class
+     * @since 2.7
+     */
+    public <T extends BaseBean> void increment(T bean, String column, long id, long delta) {
+        CounterKey key = new CounterKey(bean.tableName(), column, id);
+        if (!counterMap.containsKey(key)) {
+            BaseDao.makeIncrementSql(bean, column);
+        }
+        add(key, delta);
+    }
+
+    /**
+     * Add the delta to the counter of the key. When the counter is removed by a concurrent flush after got,
+     * the delta not drained by the flush is moved to the new counter, so no increment is lost or counted twice.
+     *
+     * @param key   counter key
+     * @param delta the delta to add
+     * @since 2.7
+     */
+    private void add(CounterKey key, long delta) {
+        while (delta != 0) {
+            LongAdder adder = counterMap.get(key);
+            if (adder == null) {
+                adder = counterMap.computeIfAbsent(key, k -> new LongAdder());
+            }
+            adder.add(delta);
+            if (counterMap.get(key) == adder) {
+                return;
+            }
+            delta = adder.sumThenReset();
+        }
+    }
+
+    /**
+     * <p>Execute the accumulated deltas in a new connection of master pool by JDBC batch.</p>
+     * <p>The flushed deltas are subtracted from the accumulated ones, so the concurrent increments will not be lost,
+     * the drained counters are removed, and the deltas are restored when the flush failed.</p>
+     * <p>It gets its own connection, so it should be called when current thread has no connection.</p>
+     *
+     * @return count of updated rows
+     * @throws Exception exception when update failed
+     * @since 2.7
+     */
+    public synchronized int flush() throws Exception {
+        Map<String, List<List<Object>>> sqlParamMap = new HashMap<String, List<List<Object>>>();
+        Map<CounterKey, Long> flushMap = new HashMap<CounterKey, Long>();
+        for (Map.Entry<CounterKey, LongAdder> entry : counterMap.entrySet()) {
+            CounterKey key = entry.getKey();
+            LongAdder adder = entry.getValue();
+            long delta = adder.sum();
+            if (delta != 0) {
+                adder.add(-delta);
+            }
+            if (adder.sum() == 0 && counterMap.remove(key, adder)) {
+                // the increments between the check and the remove are drained here or moved by the incrementing thread
+                delta += adder.sumThenReset();
+            }
+            if (delta != 0) {
+                long flushDelta = delta;
+                flushMap.merge(key, flushDelta, Long::sum);
+                String sql = "UPDATE " + key.tableName + " SET " + key.column + " = " + key.column + " + ? WHERE id = ?";
+                sqlParamMap.computeIfAbsent(sql, k -> new ArrayList<List<Object>>()).add(List.of(flushDelta, key.id));
+            }
+        }
+        if (sqlParamMap.isEmpty()) {
+            return 0;
+        }
+        try {
+            return ConnectionPool.callInConnection(null, () -> {
+                int count = 0;
+                for (Map.Entry<String, List<List<Object>>> entry : sqlParamMap.entrySet()) {
+                    count += BaseDao.executeBatchUpdate(entry.getKey(), entry.getValue());
+                }
+                return count;
+            });
+        } catch (Exception e) {
+            for (Map.Entry<CounterKey, Long> entry : flushMap.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start to flush periodically in a daemon thread.
+     *
+     * @param periodMillis the period between two flushes in milliseconds
+     * @since 2.7
+     */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fastjdbc-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                LOGGER.error("Flush counter failed", e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop flushing periodically and flush the remaining deltas. When started, the last flush runs in the daemon
+     * thread, so it can be called when current thread has a connection, otherwise it runs in current thread.
+     *
+     * @throws Exception exception when update failed
+     * @since 2.7
+     */
+    public void stop() throws Exception {
+        ScheduledExecutorService stoppedScheduler;
+        synchronized (this) {
+            stoppedScheduler = scheduler;
+            scheduler = null;
+        }
+        if (stoppedScheduler == null) {
+            flush();
+            return;
+        }
+        Future<Integer> future = stoppedScheduler.submit(this::flush);
+        stoppedScheduler.shutdown();
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Key of a counter: table, column and id of the row.
+     *
+     * @since 2.7
+     */
+    private static class CounterKey {
+
+        private final String tableName;
+
+        private final String column;
+
+        private final long id;
+
+        private CounterKey(String tableName, String column, long id) {
+            this.tableName = tableName;
+            this.column = column;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CounterKey)) {
+                return false;
+            }
+            CounterKey that = (CounterKey) o;
+            return id == that.id && tableName.equals(that.tableName) && column.equals(that.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, column, id);
+        }
+    }
+
+}
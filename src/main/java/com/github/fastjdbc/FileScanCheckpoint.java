@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A {@link ScanCheckpoint} saved in a local file, each completed chunk is appended as a line of
+ * {@code startId endId}.</p>
+ * <pre>{@code
+ * new TableScanner("slave").setCheckpoint(new FileScanCheckpoint(Path.of("/data/job/test.checkpoint")))
+ *         .scan(new Test(), handler);
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class FileScanCheckpoint implements ScanCheckpoint {
+
+    /**
+     * The checkpoint file.
+     *
+     * @since 2.7
+     */
+    private final Path path;
+
+    /**
+     * Start ids of the completed chunks.
+     *
+     * @since 2.7
+     */
+    private final Set<Long> completedSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a checkpoint and load the completed chunks from the file when it exists.
+     *
+     * @param path the checkpoint file
+     * @throws IOException exception when read the file failed
+     * @since 2.7
+     */
+    public FileScanCheckpoint(Path path) throws IOException {
+        this.path = path;
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                int index = line.indexOf(' ');
+                if (index > 0) {
+                    completedSet.add(Long.parseLong(line.substring(0, index)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isCompleted(long startId) {
+        return completedSet.contains(startId);
+    }
+
+    @Override
+    public synchronized void complete(long startId, long endId) throws IOException {
+        Files.write(path, (startId + " " + endId + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        completedSet.add(startId);
+    }
+
+    @Override
+    public synchronized void delete() throws IOException {
+        Files.deleteIfExists(path);
+        completedSet.clear();
+    }
+
+    /**
+     * Get the count of the completed chunks.
+     *
+     * @return count of the completed chunks
+     * @since 2.7
+     */
+    public int getCompletedCount() {
+        return completedSet.size();
+    }
+
+}
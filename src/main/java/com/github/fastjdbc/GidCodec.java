@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A codec to store the gids of UUID format as {@code BINARY(16)} instead of {@code CHAR(36)}, the java API keeps
+ * {@link String}. The binary index is less than half size of the char index.</p>
+ * <p>When enabled by {@link #setBinary(boolean)} on system start, the {@code gid} values are encoded in all the
+ * {@code *ByGid} methods of {@link BaseDao} and in the {@code gid} column of {@link BaseBean#columnMap(boolean)},
+ * and {@link #getGid(ResultSet, String)} should be used in {@link BaseBean#beanFromResultSet(ResultSet)}
+ * to read the gid, eg:</p>
+ * <pre>{@code
+ * return new Test()
+ *     .setId(rs.getInt("id"))
+ *     .setGid(GidCodec.getGid(rs, "gid"));
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class GidCodec {
+
+    /**
+     * The hex digits.
+     *
+     * @since 2.7
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Whether the gids are stored as binary.
+     *
+     * @since 2.7
+     */
+    private static volatile boolean BINARY;
+
+    /**
+     * Set whether the gids are stored as {@code BINARY(16)}.
+     *
+     * @param binary true to store the gids as binary, false to store them as string
+     * @since 2.7
+     */
+    public static void setBinary(boolean binary) {
+        BINARY = binary;
+    }
+
+    /**
+     * Whether the gids are stored as {@code BINARY(16)}.
+     *
+     * @return true when the gids are stored as binary
+     * @since 2.7
+     */
+    public static boolean isBinary() {
+        return BINARY;
+    }
+
+    /**
+     * Convert the gid of UUID format to 16 bytes.
+     *
+     * @param gid gid string of 36 characters
+     * @return 16 bytes
+     * @since 2.7
+     */
+    public static byte[] toBytes(String gid) {
+        if (gid.length() != 36) {
+            throw new RuntimeException("gid " + gid + " is not uuid format");
+        }
+        byte[] bytes = new byte[16];
+        for (int i = 0, j = 0; j < 16; j++, i += 2) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (gid.charAt(i) != '-') {
+                    throw new RuntimeException("gid " + gid + " is not uuid format");
+                }
+                i++;
+            }
+            bytes[j] = (byte) (hexValue(gid, i) << 4 | hexValue(gid, i + 1));
+        }
+        return bytes;
+    }
+
+    /**
+     * Convert 16 bytes to the gid of UUID format.
+     *
+     * @param bytes 16 bytes
+     * @return gid string of 36 characters
+     * @since 2.7
+     */
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new RuntimeException("gid must be 16 bytes");
+        }
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSigBits = mostSigBits << 8 | (bytes[i] & 0xFF);
+            leastSigBits = leastSigBits << 8 | (bytes[i + 8] & 0xFF);
+        }
+        return format(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Read the gid column of the result set, decode it when the gids are stored as binary.
+     *
+     * @param rs     the ResultSet of query
+     * @param column the gid column name
+     * @return gid string, {@code null} when the column is null
+     * @throws SQLException the exception of parse value
+     * @since 2.7
+     */
+    public static String getGid(ResultSet rs, String column) throws SQLException {
+        if (!BINARY) {
+            return rs.getString(column);
+        }
+        byte[] bytes = rs.getBytes(column);
+        return bytes == null ? null : fromBytes(bytes);
+    }
+
+    /**
+     * Encode the gid value as a statement param when the gids are stored as binary.
+     *
+     * @param gid the gid value
+     * @return bytes when the gids are stored as binary and the value is a string, otherwise the value itself
+     * @since 2.7
+     */
+    static Object encode(Object gid) {
+        return BINARY && gid instanceof String ? toBytes((String) gid) : gid;
+    }
+
+    /**
+     * Encode the gid list as statement params when the gids are stored as binary.
+     *
+     * @param gidList the gid list
+     * @return list of encoded gids, or the list itself when the gids are stored as string
+     * @since 2.7
+     */
+    static List<?> encodeList(List<String> gidList) {
+        if (!BINARY) {
+            return gidList;
+        }
+        List<Object> paramList = new ArrayList<Object>(gidList.size());
+        for (String gid : gidList) {
+            paramList.add(encode(gid));
+        }
+        return paramList;
+    }
+
+    /**
+     * Format the 128 bits to UUID string.
+     *
+     * @param mostSigBits  the most significant 64 bits
+     * @param leastSigBits the least significant 64 bits
+     * @return UUID string of 36 characters
+     * @since 2.7
+     */
+    static String format(long mostSigBits, long leastSigBits) {
+        char[] chars = new char[36];
+        formatHex(mostSigBits >>> 32, chars, 0, 8);
+        chars[8] = '-';
+        formatHex(mostSigBits >>> 16, chars, 9, 4);
+        chars[13] = '-';
+        formatHex(mostSigBits, chars, 14, 4);
+        chars[18] = '-';
+        formatHex(leastSigBits >>> 48, chars, 19, 4);
+        chars[23] = '-';
+        formatHex(leastSigBits, chars, 24, 12);
+        return new String(chars);
+    }
+
+    /**
+     * Write the low digits of the value as hex to the chars.
+     *
+     * @param value  the value
+     * @param chars  the chars to write
+     * @param offset the offset of chars
+     * @param digits count of hex digits
+     * @since 2.7
+     */
+    private static void formatHex(long value, char[] chars, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * Get the value of the hex digit.
+     *
+     * @param gid   the gid string
+     * @param index index of the digit
+     * @return value of the digit
+     * @since 2.7
+     */
+    private static int hexValue(String gid, int index) {
+        int value = Character.digit(gid.charAt(index), 16);
+        if (value < 0) {
+            throw new RuntimeException("gid " + gid + " is not uuid format");
+        }
+        return value;
+    }
+
+}
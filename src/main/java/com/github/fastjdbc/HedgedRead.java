@@ -0,0 +1,333 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A read executor which sends the same read to a second slave pool when the first one is slow.</p>
+ * <p>The read runs on a slave pool first, when it has not returned within the hedge delay, which is the given
+ * percentile of the recent read latencies, the same read runs on the next slave pool. The first successful result
+ * is returned and the other running statement is cancelled. It trims the tail latency caused by one slow slave
+ * at the cost of a few more reads.</p>
+ * <pre>{@code
+ * HedgedRead hedgedRead = new HedgedRead(0.95, 10000);
+ * Test test = hedgedRead.call(() -> TestDao.selectTableById(new Test().setId(1)));
+ * }</pre>
+ * <p>Note: only idempotent reads should be hedged, each read has its own connection.</p>
+ *
+ * @since 2.7
+ */
+public class HedgedRead {
+
+    /**
+     * Count of the latency samples.
+     *
+     * @since 2.7
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * The hedge delay is computed again after the count of new samples.
+     *
+     * @since 2.7
+     */
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    /**
+     * Hedge delay in milliseconds before enough samples collected.
+     *
+     * @since 2.7
+     */
+    private static final long DEFAULT_DELAY_MILLIS = 50;
+
+    /**
+     * Slave pool names to run the reads.
+     *
+     * @since 2.7
+     */
+    private final List<String> slavePoolNameList;
+
+    /**
+     * Percentile of latencies used as hedge delay, between 0 and 1.
+     *
+     * @since 2.7
+     */
+    private final double percentile;
+
+    /**
+     * Timeout of each read in milliseconds.
+     *
+     * @since 2.7
+     */
+    private final long timeoutMillis;
+
+    /**
+     * Recent read latencies in milliseconds, used as a ring.
+     *
+     * @since 2.7
+     */
+    private final long[] latencySamples = new long[SAMPLE_SIZE];
+
+    /**
+     * Count of all the samples recorded.
+     *
+     * @since 2.7
+     */
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    /**
+     * Current hedge delay in milliseconds.
+     *
+     * @since 2.7
+     */
+    private volatile long delayMillis = DEFAULT_DELAY_MILLIS;
+
+    /**
+     * Round robin offset of the slave pools.
+     *
+     * @since 2.7
+     */
+    private final AtomicInteger offset = new AtomicInteger();
+
+    /**
+     * Count of the reads which are hedged.
+     *
+     * @since 2.7
+     */
+    private final LongAdder hedgedCount = new LongAdder();
+
+    /**
+     * Count of the hedged reads which are won by the second read.
+     *
+     * @since 2.7
+     */
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    /**
+     * Create a hedged read executor on all the slave pools, or on the master pool when no slave pool configured.
+     *
+     * @param percentile    percentile of latencies used as hedge delay, such as 0.95
+     * @param timeoutMillis timeout of each read in milliseconds
+     * @since 2.7
+     */
+    public HedgedRead(double percentile, long timeoutMillis) {
+        this(ConnectionPool.getSlavePoolNameList(), percentile, timeoutMillis);
+    }
+
+    /**
+     * Create a hedged read executor on the given slave pools.
+     *
+     * @param slavePoolNameList slave pool names, the master pool is used when it's empty, the reads are not hedged
+     *                          when less than two
+     * @param percentile        percentile of latencies used as hedge delay, such as 0.95
+     * @param timeoutMillis     timeout of each read in milliseconds
+     * @since 2.7
+     */
+    public HedgedRead(List<String> slavePoolNameList, double percentile, long timeoutMillis) {
+        if (slavePoolNameList == null || slavePoolNameList.isEmpty()) {
+            this.slavePoolNameList = Collections.singletonList(null);
+        } else {
+            this.slavePoolNameList = new ArrayList<String>(slavePoolNameList);
+        }
+        this.percentile = Math.min(1, Math.max(0, percentile));
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run the read, and run it again on the next slave pool when it's slower than the hedge delay.
+     *
+     * @param callable the read work
+     * @param <R>      the result type
+     * @return the first successful result
+     * @throws Exception exception when all the reads failed, {@link TimeoutException} when no read returned within
+     *                   the timeout after the last read started
+     * @since 2.7
+     */
+    public <R> R call(SqlCallable<R> callable) throws Exception {
+        int poolCount = slavePoolNameList.size();
+        int index = Math.floorMod(offset.getAndIncrement(), poolCount);
+        Attempt<R> primary = new Attempt<R>(slavePoolNameList.get(index), callable);
+        primary.submit();
+        try {
+            return primary.future.get(poolCount > 1 ? delayMillis : timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            if (poolCount == 1) {
+                primary.cancel();
+                throw e;
+            }
+        }
+        hedgedCount.increment();
+        Attempt<R> secondary = new Attempt<R>(slavePoolNameList.get((index + 1) % poolCount), callable);
+        secondary.submit();
+        CompletableFuture<R> winner = new CompletableFuture<R>();
+        AtomicInteger failedCount = new AtomicInteger();
+        for (Attempt<R> attempt : Arrays.asList(primary, secondary)) {
+            attempt.future.whenComplete((result, e) -> {
+                if (e == null) {
+                    if (winner.complete(result) && attempt == secondary) {
+                        hedgeWinCount.increment();
+                    }
+                } else if (failedCount.incrementAndGet() == 2) {
+                    winner.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            return winner.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            primary.cancel();
+            secondary.cancel();
+        }
+    }
+
+    /**
+     * Get the current hedge delay.
+     *
+     * @return hedge delay in milliseconds
+     * @since 2.7
+     */
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Get the count of the reads which are hedged.
+     *
+     * @return count of hedged reads
+     * @since 2.7
+     */
+    public long getHedgedCount() {
+        return hedgedCount.sum();
+    }
+
+    /**
+     * Get the count of the hedged reads which are won by the second read.
+     *
+     * @return count of hedged reads won by the second read
+     * @since 2.7
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * Record a read latency, successful or failed, and compute the hedge delay again when enough new samples.
+     *
+     * @param latencyMillis read latency in milliseconds
+     * @since 2.7
+     */
+    private void recordLatency(long latencyMillis) {
+        int count = sampleCount.incrementAndGet();
+        latencySamples[(count - 1) % SAMPLE_SIZE] = latencyMillis;
+        if (count % RECOMPUTE_INTERVAL == 0) {
+            long[] samples = Arrays.copyOf(latencySamples, Math.min(count, SAMPLE_SIZE));
+            Arrays.sort(samples);
+            delayMillis = Math.max(1, samples[(int) Math.min(samples.length - 1, Math.floor(samples.length * percentile))]);
+        }
+    }
+
+    /**
+     * Get the cause of the execution exception.
+     *
+     * @param e the execution exception
+     * @return the cause exception
+     * @since 2.7
+     */
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    /**
+     * An attempt of the read on a slave pool.
+     *
+     * @param <R> the result type
+     * @since 2.7
+     */
+    private class Attempt<R> implements Runnable {
+
+        private final String slavePoolName;
+
+        private final SqlCallable<R> callable;
+
+        private final CompletableFuture<R> future = new CompletableFuture<R>();
+
+        private Thread thread;
+
+        private boolean finished;
+
+        private Attempt(String slavePoolName, SqlCallable<R> callable) {
+            this.slavePoolName = slavePoolName;
+            this.callable = callable;
+        }
+
+        private void submit() {
+            AsyncDao.execute(ConnectionPool.getDataSource(slavePoolName), this, future::completeExceptionally);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+            long start = System.nanoTime();
+            try {
+                future.complete(ConnectionPool.callInConnection(slavePoolName, () -> QueryTimeout.call(timeoutMillis, callable)));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                boolean completed;
+                synchronized (this) {
+                    completed = !finished;
+                    finished = true;
+                    thread = null;
+                }
+                // the failed reads are recorded too, only the cancelled ones are not as their latencies are unknown
+                if (completed) {
+                    recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+        }
+
+        private synchronized void cancel() {
+            if (!finished) {
+                finished = true;
+                if (thread != null) {
+                    QueryTimeout.cancel(thread);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+/**
+ * The counts of rows changed by a merge.
+ *
+ * @see BaseDao#mergeTableById(BaseBean, java.util.List, boolean, boolean)
+ * @see BaseDao#mergeTableByGid(BaseBean, java.util.List, boolean, boolean)
+ * @since 2.7
+ */
+public class MergeResult {
+
+    /**
+     * Count of inserted rows.
+     *
+     * @since 2.7
+     */
+    private int insertedCount;
+
+    /**
+     * Count of updated rows, the rows without change are not updated, {@code 0} when the driver rewrites
+     * the batch with {@code rewriteBatchedStatements=true}.
+     *
+     * @since 2.7
+     */
+    private int updatedCount;
+
+    /**
+     * Count of deleted or soft deleted rows.
+     *
+     * @since 2.7
+     */
+    private int deletedCount;
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public MergeResult setInsertedCount(int insertedCount) {
+        this.insertedCount = insertedCount;
+        return this;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public MergeResult setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+        return this;
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public MergeResult setDeletedCount(int deletedCount) {
+        this.deletedCount = deletedCount;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MergeResult{" +
+                "insertedCount=" + insertedCount +
+                ", updatedCount=" + updatedCount +
+                ", deletedCount=" + deletedCount +
+                '}';
+    }
+}
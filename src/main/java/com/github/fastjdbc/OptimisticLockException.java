@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.SQLException;
+
+/**
+ * <p>An exception thrown when an update with {@code version} column matches no row,
+ * which means the row has been updated by others since loaded(or deleted).</p>
+ *
+ * @see BaseDao#updateTableById(BaseBean, boolean)
+ * @see BaseDao#retryOnConflict(int, SqlCallable)
+ * @since 2.7
+ */
+public class OptimisticLockException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Table name of the row.
+     *
+     * @since 2.7
+     */
+    private final String tableName;
+
+    /**
+     * Value of id or gid of the row.
+     *
+     * @since 2.7
+     */
+    private final Object key;
+
+    /**
+     * The expected version of the row.
+     *
+     * @since 2.7
+     */
+    private final Object version;
+
+    public OptimisticLockException(String tableName, Object key, Object version) {
+        super("optimistic lock conflict, table: " + tableName + ", key: " + key + ", version: " + version);
+        this.tableName = tableName;
+        this.key = key;
+        this.version = version;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Object getVersion() {
+        return version;
+    }
+}
@@ -77,6 +77,14 @@ public class PageParamBean<T extends BaseBean> {
      */
     private int size;
 
+    /**
+     * Mapper to get the bean from each row of the query result, {@link BaseBean#beanFromResultSet(java.sql.ResultSet)}
+     * of the bean is used when it's {@code null}.
+     *
+     * @since 2.7
+     */
+    private RowMapper<T> mapper;
+
     public T getBean() {
         return bean;
     }
@@ -140,6 +148,15 @@ public class PageParamBean<T extends BaseBean> {
         return this;
     }
 
+    public RowMapper<T> getMapper() {
+        return mapper;
+    }
+
+    public PageParamBean<T> setMapper(RowMapper<T> mapper) {
+        this.mapper = mapper;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "PageParamBean{" +
@@ -150,6 +167,7 @@ public class PageParamBean<T extends BaseBean> {
                 ", paramList=" + paramList +
                 ", page=" + page +
                 ", size=" + size +
+                ", mapper=" + mapper +
                 '}';
     }
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A facade of {@link BaseDao} for the monthly tables of {@link TimePartition}.</p>
+ * <p>The rows are inserted into the table of their {@code create_time}, and the queries take a time range of
+ * {@code create_time}, only the existing tables covered by the range are queried one by one in the connection of
+ * current thread, the others are pruned.</p>
+ * <pre>{@code
+ * TimePartition partition = new TimePartition("test", ZoneId.systemDefault());
+ * PartitionDao.createPartitionIfAbsent(partition, YearMonth.now());
+ * PartitionDao.insertIntoTable(partition, test);
+ * List<Test> testList = PartitionDao.selectTableByBean(partition, new Test().setIsValid(1), startTime, endTime);
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class PartitionDao {
+
+    /**
+     * The order of rows for page, the newest first.
+     *
+     * @since 2.7
+     */
+    private static final String PAGE_ORDER_SQL = " ORDER BY create_time DESC, id DESC";
+
+    /**
+     * <p>Create the table of the given month like the base table when not exists.</p>
+     * <p>Note: DDL statement commits the transaction of current connection implicitly in mysql.</p>
+     *
+     * @param partition the partition
+     * @param month     the month
+     * @return count of affected rows
+     * @throws SQLException exception when create failed
+     * @since 2.7
+     */
+    public static int createPartitionIfAbsent(TimePartition partition, YearMonth month) throws SQLException {
+        return BaseDao.executeUpdate("CREATE TABLE IF NOT EXISTS " + partition.getTableName(month) + " LIKE " + partition.getBaseTableName(), null);
+    }
+
+    /**
+     * <p>Drop the table of the given month when exists, it's much cheaper than delete the old rows.</p>
+     * <p>Note: DDL statement commits the transaction of current connection implicitly in mysql.</p>
+     *
+     * @param partition the partition
+     * @param month     the month
+     * @return count of affected rows
+     * @throws SQLException exception when drop failed
+     * @since 2.7
+     */
+    public static int dropPartition(TimePartition partition, YearMonth month) throws SQLException {
+        return BaseDao.executeUpdate("DROP TABLE IF EXISTS " + partition.getTableName(month), null);
+    }
+
+    /**
+     * Get the existing tables of the partition covered by the given time range.
+     *
+     * @param partition the partition
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @return the physical table names in ascending order of month
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    public static List<String> getTableNameList(TimePartition partition, long startTime, long endTime) throws SQLException {
+        List<String> tableNameList = partition.getTableNameList(startTime, endTime);
+        if (tableNameList.isEmpty()) {
+            return tableNameList;
+        }
+        Set<String> existSet = new HashSet<String>(BaseDao.executeSelectReturnStringList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name" + BaseDao.makeInStr(tableNameList), tableNameList));
+        tableNameList.retainAll(existSet);
+        return tableNameList;
+    }
+
+    /**
+     * Insert the not null properties of bean into the table of its {@code create_time}.
+     *
+     * @param partition the partition
+     * @param bean      bean to insert, the {@code create_time} should not null
+     * @param <T>       {@link BaseBean} type class
+     * @return count of insert rows
+     * @throws SQLException exception when insert failed
+     * @see BaseDao#insertIntoTable(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int insertIntoTable(TimePartition partition, T bean) throws SQLException {
+        List<Object> paramList = new ArrayList<Object>();
+        String sql = BaseDao.getInsertSql(getTableName(partition, bean), bean, paramList);
+        return BaseDao.executeUpdate(sql, paramList);
+    }
+
+    /**
+     * Batch insert the properties of bean list into the tables of their {@code create_time}, one statement for each table.
+     *
+     * @param partition the partition
+     * @param list      list of bean to insert, the {@code create_time} should not null
+     * @param <T>       {@link BaseBean} type class
+     * @return count of insert rows
+     * @throws SQLException exception when insert failed
+     * @see BaseDao#batchInsertIntoTable(List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int batchInsertIntoTable(TimePartition partition, List<T> list) throws SQLException {
+        Map<String, List<T>> tableMap = new LinkedHashMap<String, List<T>>();
+        for (T bean : list) {
+            tableMap.computeIfAbsent(getTableName(partition, bean), k -> new ArrayList<T>()).add(bean);
+        }
+        int count = 0;
+        for (Map.Entry<String, List<T>> entry : tableMap.entrySet()) {
+            List<Object> paramList = new ArrayList<Object>();
+            String sql = BaseDao.getBatchInsertSql(entry.getKey(), entry.getValue(), paramList);
+            count += BaseDao.executeUpdate(sql, paramList);
+        }
+        return count;
+    }
+
+    /**
+     * Count the rows by the param bean in the given time range, match all the not null properties equals.
+     *
+     * @param partition the partition
+     * @param bean      the param bean
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @param <T>       {@link BaseBean} type class
+     * @return sum of the counts of all the covered tables
+     * @throws SQLException exception when query
+     * @see BaseDao#countTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int countTableByBean(TimePartition partition, T bean, long startTime, long endTime) throws SQLException {
+        int count = 0;
+        for (String tableName : getTableNameList(partition, startTime, endTime)) {
+            count += countTable(tableName, bean, startTime, endTime);
+        }
+        return count;
+    }
+
+    /**
+     * Query beans by the param bean in the given time range, match all the not null properties equals.
+     *
+     * @param partition the partition
+     * @param bean      the param bean
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @param <T>       {@link BaseBean} type class
+     * @return all query results in ascending order of month
+     * @throws SQLException exception when query
+     * @see BaseDao#selectTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByBean(TimePartition partition, T bean, long startTime, long endTime) throws SQLException {
+        List<T> list = new ArrayList<T>();
+        for (String tableName : getTableNameList(partition, startTime, endTime)) {
+            List<Object> paramList = new ArrayList<Object>();
+            String sql = makeSelectTableSql(tableName, "*", bean, startTime, endTime, paramList);
+            list.addAll(BaseDao.executeSelectReturnList(sql, paramList, bean));
+        }
+        return list;
+    }
+
+    /**
+     * <p>Query list of beans by the param bean in the given time range for page, the newest first.</p>
+     * <p>The tables are walked from the newest month, the tables before the page are only counted.</p>
+     *
+     * @param partition the partition
+     * @param bean      the param bean
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @param page      page number
+     * @param size      the count of data displayed on each page
+     * @param <T>       {@link BaseBean} type class
+     * @return {@link PageBean} object
+     * @throws SQLException exception when query
+     * @see BaseDao#selectTableForPage(BaseBean, int, int)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> PageBean<T> selectTableForPage(TimePartition partition, T bean, long startTime, long endTime, int page, int size) throws SQLException {
+        size = Math.max(1, size);
+        page = Math.max(1, page);
+        List<String> tableNameList = getTableNameList(partition, startTime, endTime);
+        Collections.reverse(tableNameList);
+        List<Integer> countList = new ArrayList<Integer>(tableNameList.size());
+        int total = 0;
+        for (String tableName : tableNameList) {
+            int count = countTable(tableName, bean, startTime, endTime);
+            countList.add(count);
+            total += count;
+        }
+        List<T> data = new ArrayList<T>(size);
+        PageBean pageBean = new PageBean().setTotal(total).setPage(1).setData(data);
+        if (total == 0) {
+            return pageBean;
+        }
+        int offset = (page - 1) * size;
+        if (offset >= total) {
+            page = (total - 1) / size + 1;
+            offset = (page - 1) * size;
+        }
+        for (int i = 0, tableSize = tableNameList.size(); i < tableSize && data.size() < size; i++) {
+            int count = countList.get(i);
+            if (offset >= count) {
+                offset -= count;
+                continue;
+            }
+            List<Object> paramList = new ArrayList<Object>();
+            String sql = makeSelectTableSql(tableNameList.get(i), "*", bean, startTime, endTime, paramList) + PAGE_ORDER_SQL + " LIMIT ?, ?";
+            paramList.add(offset);
+            paramList.add(size - data.size());
+            data.addAll(BaseDao.executeSelectReturnList(sql, paramList, bean));
+            offset = 0;
+        }
+        return pageBean.setPage(page);
+    }
+
+    /**
+     * Count the rows of a table by the param bean in the given time range.
+     *
+     * @param tableName physical table name
+     * @param bean      the param bean
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @param <T>       {@link BaseBean} type class
+     * @return count of rows
+     * @throws SQLException exception when query
+     * @since 2.7
+     */
+    private static <T extends BaseBean> int countTable(String tableName, T bean, long startTime, long endTime) throws SQLException {
+        List<Object> paramList = new ArrayList<Object>();
+        String sql = makeSelectTableSql(tableName, "COUNT(1)", bean, startTime, endTime, paramList);
+        ResultSet rs = null;
+        try {
+            rs = BaseDao.executeSelectReturnResultSet(sql, paramList);
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } finally {
+            ConnectionPool.close(rs);
+        }
+        return 0;
+    }
+
+    /**
+     * Join the select sql of a table with the not null columns of bean and the time range, and add param to param list.
+     *
+     * @param tableName physical table name
+     * @param columnSql the column sql to select
+     * @param bean      the param bean
+     * @param startTime start epoch seconds of {@code create_time}, inclusive
+     * @param endTime   end epoch seconds of {@code create_time}, inclusive
+     * @param paramList param list
+     * @param <T>       {@link BaseBean} type class
+     * @return sql string
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends BaseBean> String makeSelectTableSql(String tableName, String columnSql, T bean, long startTime, long endTime, List<Object> paramList) {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        StringBuilder sqlBuilder = new StringBuilder("SELECT ").append(columnSql).append(" FROM ").append(tableName).append(" WHERE ");
+        if (!columnMap.isEmpty()) {
+            sqlBuilder.append(BaseDao.makeColumnParamSql(columnMap, paramList, " AND ")).append(" AND ");
+        }
+        paramList.add(startTime);
+        paramList.add(endTime);
+        return sqlBuilder.append("create_time BETWEEN ? AND ?").toString();
+    }
+
+    /**
+     * Get the physical table name of the bean by its {@code create_time}.
+     *
+     * @param partition the partition
+     * @param bean      bean object
+     * @return the physical table name
+     * @since 2.7
+     */
+    private static String getTableName(TimePartition partition, BaseBean bean) {
+        Object createTime = bean.columnMap(false).get("create_time");
+        if (!(createTime instanceof Number)) {
+            throw new RuntimeException("create_time must not null to find the partition of table " + partition.getBaseTableName());
+        }
+        return partition.getTableName(((Number) createTime).longValue());
+    }
+
+}
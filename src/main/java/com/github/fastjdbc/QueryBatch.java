@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>A batch of independent reads executed in parallel.</p>
+ * <p>Register the reads by {@link #add(SqlCallable)}, then call {@link #execute()} to run all of them
+ * at the same time, the reads are spread over the slave pools by round robin and each read has its own connection.
+ * So the latency of the batch is about the slowest read instead of the sum of all reads.</p>
+ * <pre>{@code
+ * QueryBatch batch = new QueryBatch();
+ * CompletableFuture<Test> test = batch.add(() -> TestDao.selectTableById(new Test().setId(1)));
+ * CompletableFuture<String> testName = batch.add(() -> TestDao.selectTestNameById(2));
+ * batch.execute();
+ * }</pre>
+ * <p>Note: the reads are not in the transaction of the calling thread, the uncommitted changes of it are invisible.</p>
+ *
+ * @since 2.7
+ */
+public class QueryBatch {
+
+    /**
+     * Slave pool names to run the reads, {@code null} element means master pool.
+     *
+     * @since 2.7
+     */
+    private final List<String> slavePoolNameList;
+
+    /**
+     * The registered reads.
+     *
+     * @since 2.7
+     */
+    private final List<Query<?>> queryList = new ArrayList<Query<?>>();
+
+    /**
+     * Create a batch which runs the reads on all the slave pools, or on the master pool when no slave pool configured.
+     *
+     * @since 2.7
+     */
+    public QueryBatch() {
+        this(ConnectionPool.getSlavePoolNameList());
+    }
+
+    /**
+     * Create a batch which runs the reads on the given slave pools.
+     *
+     * @param slavePoolNameList slave pool names, the master pool is used when it's empty
+     * @since 2.7
+     */
+    public QueryBatch(List<String> slavePoolNameList) {
+        if (slavePoolNameList == null || slavePoolNameList.isEmpty()) {
+            this.slavePoolNameList = Collections.singletonList(null);
+        } else {
+            this.slavePoolNameList = new ArrayList<String>(slavePoolNameList);
+        }
+    }
+
+    /**
+     * Register a read, it will not run until {@link #execute()} called.
+     *
+     * @param callable the read work
+     * @param <R>      the result type
+     * @return future which completes with the result of the read when the batch executed
+     * @since 2.7
+     */
+    public <R> CompletableFuture<R> add(SqlCallable<R> callable) {
+        Query<R> query = new Query<R>(callable);
+        queryList.add(query);
+        return query.future;
+    }
+
+    /**
+     * Run all the registered reads in parallel and wait for them to finish.
+     *
+     * @throws Exception the first exception of the failed reads
+     * @since 2.7
+     */
+    public void execute() throws Exception {
+        if (queryList.isEmpty()) {
+            return;
+        }
+        int poolCount = slavePoolNameList.size();
+        int offset = ThreadLocalRandom.current().nextInt(poolCount);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[queryList.size()];
+        for (int i = 0, size = queryList.size(); i < size; i++) {
+            futures[i] = queryList.get(i).submit(slavePoolNameList.get((offset + i) % poolCount));
+        }
+        queryList.clear();
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A registered read and the future of its result.
+     *
+     * @param <R> the result type
+     * @since 2.7
+     */
+    private static class Query<R> {
+
+        private final SqlCallable<R> callable;
+
+        private final CompletableFuture<R> future = new CompletableFuture<R>();
+
+        private Query(SqlCallable<R> callable) {
+            this.callable = callable;
+        }
+
+        private CompletableFuture<R> submit(String slavePoolName) {
+            return AsyncDao.supplyAsync(slavePoolName, callable).whenComplete((result, e) -> {
+                if (e == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+}
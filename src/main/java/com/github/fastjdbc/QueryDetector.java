@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A diagnostic tool to find the N+1 query problem.</p>
+ * <p>When enabled, the statements executed in each unit of work(from {@link ConnectionPool#getConnection(String)}
+ * to {@link ConnectionPool#close()} or {@link ConnectionPool#rollback()}) are counted by fingerprint,
+ * which is the sql with the placeholders of {@code IN} list collapsed. When the same fingerprint executes more
+ * than the threshold times in one unit of work, a warn log with the caller stack of its first repeat is printed
+ * and the fingerprint is counted in the metrics.</p>
+ * <p>Nothing is tracked when disabled, the overhead is only a volatile read for each statement. When enabled, the
+ * {@code IN} list is only rewritten for the sql which contains one, and the caller stack is only captured when a
+ * fingerprint repeats for the first time, because most statements execute once in a unit of work and capturing a
+ * stack for each of them costs much more than the statement bookkeeping itself.</p>
+ *
+ * @since 2.7
+ */
+public class QueryDetector {
+
+    /**
+     * The logger facade.
+     *
+     * @since 2.7
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryDetector.class);
+
+    /**
+     * Pattern of the placeholders of {@code IN} list.
+     *
+     * @since 2.7
+     */
+    private static final Pattern IN_PATTERN = Pattern.compile("IN\\(\\?(, \\?)*\\)");
+
+    /**
+     * Whether the detector is enabled.
+     *
+     * @since 2.7
+     */
+    private static volatile boolean ENABLED = false;
+
+    /**
+     * Max execution times of the same fingerprint in one unit of work.
+     *
+     * @since 2.7
+     */
+    private static volatile int THRESHOLD = 10;
+
+    /**
+     * Fingerprint statistics of the unit of work of each thread.
+     *
+     * @since 2.7
+     */
+    private static final ThreadLocal<Map<String, Occurrence>> UNIT_OF_WORK = new ThreadLocal<Map<String, Occurrence>>();
+
+    /**
+     * Detected fingerprints, key is fingerprint, value is count of the units of work which exceed the threshold.
+     *
+     * @since 2.7
+     */
+    private static final Map<String, LongAdder> DETECTED_MAP = new ConcurrentHashMap<String, LongAdder>();
+
+    /**
+     * Count of all the detections.
+     *
+     * @since 2.7
+     */
+    private static final LongAdder DETECTED_COUNT = new LongAdder();
+
+    /**
+     * Enable the detector, it takes effect for the connections got after this call.
+     *
+     * @param threshold max execution times of the same fingerprint in one unit of work
+     * @since 2.7
+     */
+    public static void enable(int threshold) {
+        THRESHOLD = Math.max(1, threshold);
+        ENABLED = true;
+    }
+
+    /**
+     * Disable the detector.
+     *
+     * @since 2.7
+     */
+    public static void disable() {
+        ENABLED = false;
+    }
+
+    /**
+     * Whether the detector is enabled.
+     *
+     * @return true when enabled
+     * @since 2.7
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Get the count of all the detections.
+     *
+     * @return count of the detections
+     * @since 2.7
+     */
+    public static long getDetectedCount() {
+        return DETECTED_COUNT.sum();
+    }
+
+    /**
+     * Get the detected fingerprints.
+     *
+     * @return map of detected fingerprints, key is fingerprint, value is count of the units of work which exceed the threshold
+     * @since 2.7
+     */
+    public static Map<String, Long> getDetectedMap() {
+        Map<String, Long> detectedMap = new HashMap<String, Long>(DETECTED_MAP.size());
+        for (Map.Entry<String, LongAdder> entry : DETECTED_MAP.entrySet()) {
+            detectedMap.put(entry.getKey(), entry.getValue().sum());
+        }
+        return detectedMap;
+    }
+
+    /**
+     * Clear the metrics.
+     *
+     * @since 2.7
+     */
+    public static void reset() {
+        DETECTED_MAP.clear();
+        DETECTED_COUNT.reset();
+    }
+
+    /**
+     * Begin a unit of work for current thread when the detector is enabled.
+     *
+     * @since 2.7
+     */
+    static void begin() {
+        if (ENABLED) {
+            UNIT_OF_WORK.set(new HashMap<String, Occurrence>());
+        }
+    }
+
+    /**
+     * End the unit of work of current thread.
+     *
+     * @since 2.7
+     */
+    static void end() {
+        UNIT_OF_WORK.remove();
+    }
+
+    /**
+     * Record a statement executed in the unit of work of current thread.
+     *
+     * @param sql the executed sql
+     * @since 2.7
+     */
+    static void record(String sql) {
+        if (!ENABLED) {
+            return;
+        }
+        Map<String, Occurrence> occurrenceMap = UNIT_OF_WORK.get();
+        if (occurrenceMap == null) {
+            return;
+        }
+        String fingerprint = sql.contains("IN(") ? IN_PATTERN.matcher(sql).replaceAll("IN(?)") : sql;
+        Occurrence occurrence = occurrenceMap.get(fingerprint);
+        if (occurrence == null) {
+            occurrenceMap.put(fingerprint, new Occurrence());
+            return;
+        }
+        if (++occurrence.count == 2) {
+            occurrence.repeatStack = new Throwable("first repeat");
+        }
+        if (occurrence.count == THRESHOLD + 1) {
+            DETECTED_MAP.computeIfAbsent(fingerprint, k -> new LongAdder()).increment();
+            DETECTED_COUNT.increment();
+            LOGGER.warn("N+1 query detected, executed more than {} times in one unit of work: {}", THRESHOLD, fingerprint, occurrence.repeatStack);
+        }
+    }
+
+    /**
+     * Occurrence of a fingerprint in a unit of work.
+     *
+     * @since 2.7
+     */
+    private static class Occurrence {
+
+        private Throwable repeatStack;
+
+        private int count = 1;
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Deadline of the statements executed by {@link BaseDao} in current thread.</p>
+ * <p>A deadline can be set for the unit of work by {@link ConnectionPool#getConnection(String, long)},
+ * or for a part of work by {@link #call(long, SqlCallable)}. When a deadline is set, each statement gets
+ * the remaining time as query timeout, the statement is not executed when the deadline passed, and the running
+ * statement is cancelled when the deadline passed or the thread is interrupted.</p>
+ * <pre>{@code
+ * ConnectionPool.getConnection("slave", 500);
+ * List<Test> list = QueryTimeout.call(100, () -> TestDao.selectTableByBean(bean));
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class QueryTimeout {
+
+    /**
+     * The logger facade.
+     *
+     * @since 2.7
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryTimeout.class);
+
+    /**
+     * Interval of checking the running statements in milliseconds.
+     *
+     * @since 2.7
+     */
+    private static final long WATCH_INTERVAL_MILLIS = 50;
+
+    /**
+     * Deadline of each thread, the value of {@link System#nanoTime()}.
+     *
+     * @since 2.7
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<Long>();
+
+    /**
+     * The running statements with deadline, key is the executing thread.
+     *
+     * @since 2.7
+     */
+    private static final Map<Thread, RunningStatement> RUNNING_MAP = new ConcurrentHashMap<Thread, RunningStatement>();
+
+    /**
+     * The watchdog to cancel the running statements.
+     *
+     * @since 2.7
+     */
+    private static volatile ScheduledExecutorService WATCHDOG;
+
+    /**
+     * Run the work with a deadline, the deadline of current thread is used when it's earlier.
+     *
+     * @param timeoutMillis timeout of the work in milliseconds
+     * @param callable      the work
+     * @param <R>           the result type
+     * @return the result of the work
+     * @throws Exception exception when the work failed, {@link SQLTimeoutException} when a statement timeout
+     * @since 2.7
+     */
+    public static <R> R call(long timeoutMillis, SqlCallable<R> callable) throws Exception {
+        Long previous = DEADLINE.get();
+        begin(timeoutMillis);
+        try {
+            return callable.call();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Get the remaining time of the deadline of current thread.
+     *
+     * @return remaining time in milliseconds, {@code -1} when no deadline
+     * @since 2.7
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? -1 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * Set the deadline of current thread, the existing deadline is kept when it's earlier.
+     *
+     * @param timeoutMillis timeout in milliseconds
+     * @since 2.7
+     */
+    static void begin(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+        Long previous = DEADLINE.get();
+        if (previous == null || deadline - previous < 0) {
+            DEADLINE.set(deadline);
+        }
+    }
+
+    /**
+     * Clear the deadline of current thread.
+     *
+     * @since 2.7
+     */
+    static void end() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * <p>Prepare the statement before execute: set the remaining time as query timeout and register it to be cancelled.</p>
+     * <p>{@link #finish()} must be called after execute when this method returns normally.</p>
+     *
+     * @param stmt the statement to execute
+     * @throws SQLException exception when set timeout, {@link SQLTimeoutException} when the deadline passed
+     * @since 2.7
+     */
+    static void start(Statement stmt) throws SQLException {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new SQLTimeoutException("deadline exceeded before execute");
+        }
+        if (thread.isInterrupted()) {
+            throw new SQLTimeoutException("thread interrupted before execute");
+        }
+        stmt.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L)));
+        RUNNING_MAP.put(thread, new RunningStatement(stmt, deadline));
+        startWatchdog();
+    }
+
+    /**
+     * Unregister the statement of current thread after execute.
+     *
+     * @since 2.7
+     */
+    static void finish() {
+        if (DEADLINE.get() != null) {
+            RUNNING_MAP.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Cancel the running statement of the given thread, nothing happens when the thread has no statement with deadline running.
+     *
+     * @param thread the executing thread
+     * @since 2.7
+     */
+    static void cancel(Thread thread) {
+        RunningStatement running = RUNNING_MAP.remove(thread);
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    /**
+     * Start the watchdog daemon thread when not started.
+     *
+     * @since 2.7
+     */
+    private static void startWatchdog() {
+        if (WATCHDOG == null) {
+            synchronized (QueryTimeout.class) {
+                if (WATCHDOG == null) {
+                    ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "fastjdbc-query-timeout");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    watchdog.scheduleWithFixedDelay(QueryTimeout::watch, WATCH_INTERVAL_MILLIS, WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    WATCHDOG = watchdog;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancel the running statements which deadline passed or executing thread interrupted.
+     *
+     * @since 2.7
+     */
+    private static void watch() {
+        long now = System.nanoTime();
+        for (Map.Entry<Thread, RunningStatement> entry : RUNNING_MAP.entrySet()) {
+            RunningStatement running = entry.getValue();
+            if (now - running.deadline >= 0 || entry.getKey().isInterrupted()) {
+                if (RUNNING_MAP.remove(entry.getKey(), running)) {
+                    running.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * A running statement and its deadline.
+     *
+     * @since 2.7
+     */
+    private static class RunningStatement {
+
+        private final Statement stmt;
+
+        private final long deadline;
+
+        private RunningStatement(Statement stmt, long deadline) {
+            this.stmt = stmt;
+            this.deadline = deadline;
+        }
+
+        private void cancel() {
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                LOGGER.warn("Cancel statement failed", e);
+            }
+        }
+    }
+
+}
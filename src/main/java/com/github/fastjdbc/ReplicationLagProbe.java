@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.ResultSet;
+
+/**
+ * <p>A probe of the replication lag of the slaves, used by {@link TablePurger} to slow down the writes.</p>
+ *
+ * @since 2.7
+ */
+@FunctionalInterface
+public interface ReplicationLagProbe {
+
+    /**
+     * Get the current replication lag.
+     *
+     * @return replication lag in milliseconds, {@link Long#MAX_VALUE} when the replication is stopped
+     * @throws Exception exception when probe failed
+     * @since 2.7
+     */
+    long getLagMillis() throws Exception;
+
+    /**
+     * <p>A probe which reads {@code Seconds_Behind_Master} of {@code SHOW SLAVE STATUS} on the given slave pool
+     * with a new connection, so it should be called when current thread has no connection. The user of the pool needs the {@code REPLICATION CLIENT} privilege.</p>
+     * <p>The lag is {@code 0} when the pool is not a slave.</p>
+     *
+     * @param slavePoolName slave pool name
+     * @return the probe
+     * @since 2.7
+     */
+    static ReplicationLagProbe ofSlavePool(String slavePoolName) {
+        return () -> ConnectionPool.callInConnection(slavePoolName, () -> {
+            ResultSet rs = null;
+            try {
+                rs = BaseDao.executeSelectReturnResultSet("SHOW SLAVE STATUS", null);
+                if (!rs.next()) {
+                    return 0L;
+                }
+                long seconds = rs.getLong("Seconds_Behind_Master");
+                return rs.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+            } finally {
+                ConnectionPool.close(rs);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * <p>A mapper to get an object from the current row of {@link ResultSet}.</p>
+ * <p>It's used by the projection queries of {@link BaseDao} which select only a part of columns,
+ * the mapper should read only the selected columns, eg:</p>
+ * <pre>{@code
+ * List<Test> list = BaseDao.selectTableByBean(bean, List.of("id", "test_name"),
+ *         rs -> new Test().setId(rs.getInt("id")).setTestName(rs.getString("test_name")));
+ * }</pre>
+ *
+ * @param <R> the result type
+ * @since 2.7
+ */
+@FunctionalInterface
+public interface RowMapper<R> {
+
+    /**
+     * Get an object from the current row of {@link ResultSet}.
+     *
+     * @param rs the ResultSet of query
+     * @return the object of current row
+     * @throws SQLException the exception of parse value
+     * @since 2.7
+     */
+    R mapRow(ResultSet rs) throws SQLException;
+
+}
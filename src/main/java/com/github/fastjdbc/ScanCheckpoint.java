@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+/**
+ * <p>A checkpoint of the completed chunks of {@link TableScanner} and {@link TableArchiver},
+ * so a restarted run skips them.</p>
+ * <p>The chunks are identified by their start ids, which are aligned to the chunk size,
+ * so the chunk size should not change between the runs of a scan.</p>
+ *
+ * @see FileScanCheckpoint
+ * @since 2.7
+ */
+public interface ScanCheckpoint {
+
+    /**
+     * Whether the chunk is completed.
+     *
+     * @param startId start id of the chunk
+     * @return true when the chunk is completed
+     * @throws Exception exception when read the checkpoint failed
+     * @since 2.7
+     */
+    boolean isCompleted(long startId) throws Exception;
+
+    /**
+     * Mark the chunk completed, it's called in parallel by the worker threads.
+     *
+     * @param startId start id of the chunk, inclusive
+     * @param endId   end id of the chunk, exclusive
+     * @throws Exception exception when write the checkpoint failed
+     * @since 2.7
+     */
+    void complete(long startId, long endId) throws Exception;
+
+    /**
+     * Delete the checkpoint and forget the completed chunks, so the next run starts again.
+     *
+     * @throws Exception exception when delete the checkpoint failed
+     * @since 2.7
+     */
+    void delete() throws Exception;
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.util.List;
+
+/**
+ * <p>A handler of the rows of a chunk scanned by {@link TableScanner}.</p>
+ * <p>The handler is called on the threads of the scan in parallel after the read connection of the chunk closed,
+ * so it should be thread safe, and it can get its own connection to write.</p>
+ *
+ * @param <T> {@link BaseBean} type class
+ * @since 2.7
+ */
+@FunctionalInterface
+public interface ScanHandler<T extends BaseBean> {
+
+    /**
+     * Handle the rows of a chunk.
+     *
+     * @param startId  start id of the chunk, inclusive
+     * @param endId    end id of the chunk, exclusive
+     * @param beanList rows of the chunk in ascending order of id
+     * @throws Exception exception when handle failed, the scan stops and the chunk is not completed
+     * @since 2.7
+     */
+    void handle(long startId, long endId, List<T> beanList) throws Exception;
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>A shard of {@link ShardRouter}, a group of one master datasource and its slave datasources.</p>
+ *
+ * @since 2.7
+ */
+public class Shard {
+
+    /**
+     * Master datasource of the shard.
+     *
+     * @since 2.7
+     */
+    private final DataSource masterDataSource;
+
+    /**
+     * Slave datasources of the shard.
+     *
+     * @since 2.7
+     */
+    private final List<DataSource> slaveDataSourceList;
+
+    /**
+     * Create a shard.
+     *
+     * @param masterDataSource    master datasource
+     * @param slaveDataSourceList slave datasources, the master is used for reads when it's empty
+     * @since 2.7
+     */
+    public Shard(DataSource masterDataSource, List<DataSource> slaveDataSourceList) {
+        if (masterDataSource == null) {
+            throw new RuntimeException("master datasource must not null");
+        }
+        this.masterDataSource = masterDataSource;
+        this.slaveDataSourceList = slaveDataSourceList == null ? new ArrayList<DataSource>() : new ArrayList<DataSource>(slaveDataSourceList);
+    }
+
+    /**
+     * Get the master datasource for writes.
+     *
+     * @return master datasource
+     * @since 2.7
+     */
+    public DataSource getMasterDataSource() {
+        return masterDataSource;
+    }
+
+    /**
+     * Get a random slave datasource for reads, or the master datasource when no slave.
+     *
+     * @return datasource for reads
+     * @since 2.7
+     */
+    public DataSource getSlaveDataSource() {
+        int size = slaveDataSourceList.size();
+        if (size == 0) {
+            return masterDataSource;
+        }
+        return slaveDataSourceList.get(size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Get all the datasources of the shard.
+     *
+     * @return list of datasource, the master is the first
+     * @since 2.7
+     */
+    List<DataSource> getAllDataSource() {
+        List<DataSource> dataSourceList = new ArrayList<DataSource>(slaveDataSourceList.size() + 1);
+        dataSourceList.add(masterDataSource);
+        dataSourceList.addAll(slaveDataSourceList);
+        return dataSourceList;
+    }
+
+}
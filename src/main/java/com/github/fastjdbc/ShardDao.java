@@ -0,0 +1,428 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * <p>A sharding facade of the gid methods of {@link BaseDao}, the rows are routed to the shards
+ * of {@link ShardRouter} by their gids.</p>
+ * <p>Each call runs on the shards with their own connections on the executor of {@link AsyncDao}, so it's not
+ * in the transaction of the calling thread. The list methods are split by shard and run on the shards in parallel,
+ * each shard commits its own transaction, so the writes on different shards are not atomic.</p>
+ * <p>The methods without gid, such as {@link #countTableByBean(BaseBean)} and
+ * {@link #selectTableForPage(BaseBean, int, int, String, Comparator)}, scatter the query to all the shards
+ * in parallel and gather the results.</p>
+ * <pre>{@code
+ * Test test = ShardDao.selectTableByGid(new Test().setGid(gid));
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class ShardDao {
+
+    /**
+     * Insert the not null properties of bean into the shard of its gid.
+     *
+     * @param bean bean to insert, the gid should not null
+     * @param <T>  {@link BaseBean} type class
+     * @return count of insert rows
+     * @throws Exception exception when insert failed
+     * @see BaseDao#insertIntoTable(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int insertIntoTable(T bean) throws Exception {
+        return ShardRouter.callOnShard(getShardIndex(bean), false, () -> BaseDao.insertIntoTable(bean));
+    }
+
+    /**
+     * Batch insert the properties of bean list, split by the shards of their gids.
+     *
+     * @param list list of bean to insert, the gids should not null
+     * @param <T>  {@link BaseBean} type class
+     * @return count of insert rows
+     * @throws Exception exception when insert failed
+     * @see BaseDao#batchInsertIntoTable(List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int batchInsertIntoTable(List<T> list) throws Exception {
+        Map<Integer, SqlCallable<Integer>> callableMap = new LinkedHashMap<Integer, SqlCallable<Integer>>();
+        for (Map.Entry<Integer, List<T>> entry : ShardRouter.groupByShard(list, ShardDao::getGid).entrySet()) {
+            List<T> shardList = entry.getValue();
+            callableMap.put(entry.getKey(), () -> BaseDao.batchInsertIntoTable(shardList));
+        }
+        return sum(ShardRouter.callOnShards(callableMap, false));
+    }
+
+    /**
+     * Update the properties of bean by the gid of bean on its shard.
+     *
+     * @param bean bean to update
+     * @param all  true to update all column of bean, false to update not null column of bean
+     * @param <T>  {@link BaseBean} type class
+     * @return count of updated rows
+     * @throws Exception exception when update failed
+     * @see BaseDao#updateTableByGid(BaseBean, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int updateTableByGid(T bean, boolean all) throws Exception {
+        return ShardRouter.callOnShard(getShardIndex(bean), false, () -> BaseDao.updateTableByGid(bean, all));
+    }
+
+    /**
+     * Update the properties of bean by the given gid list, split by the shards of the gids.
+     *
+     * @param bean    bean to update
+     * @param gidList a list gid of the beans which will be updated
+     * @param all     true to update all column of bean, false to update not null column of bean
+     * @param <T>     {@link BaseBean} type class
+     * @return count of updated rows
+     * @throws Exception exception when update failed
+     * @see BaseDao#updateTableByGidList(BaseBean, List, boolean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int updateTableByGidList(T bean, List<String> gidList, boolean all) throws Exception {
+        Map<Integer, SqlCallable<Integer>> callableMap = new LinkedHashMap<Integer, SqlCallable<Integer>>();
+        for (Map.Entry<Integer, List<String>> entry : ShardRouter.groupByShard(gidList, gid -> gid).entrySet()) {
+            List<String> shardGidList = entry.getValue();
+            callableMap.put(entry.getKey(), () -> BaseDao.updateTableByGidList(bean, shardGidList, all));
+        }
+        return sum(ShardRouter.callOnShards(callableMap, false));
+    }
+
+    /**
+     * Soft delete a bean by the given gid on its shard.
+     *
+     * @param bean bean object
+     * @param <T>  {@link BaseBean} type class
+     * @return count of soft deleted rows
+     * @throws Exception exception when soft delete
+     * @see BaseDao#softDeleteTableByGid(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int softDeleteTableByGid(T bean) throws Exception {
+        return ShardRouter.callOnShard(getShardIndex(bean), false, () -> BaseDao.softDeleteTableByGid(bean));
+    }
+
+    /**
+     * Soft delete beans by the given gid list, split by the shards of the gids.
+     *
+     * @param bean    bean object
+     * @param gidList a list gid of the beans which will be soft deleted
+     * @param <T>     {@link BaseBean} type class
+     * @return count of soft deleted rows
+     * @throws Exception exception when soft delete
+     * @see BaseDao#softDeleteTableByGidList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int softDeleteTableByGidList(T bean, List<String> gidList) throws Exception {
+        Map<Integer, SqlCallable<Integer>> callableMap = new LinkedHashMap<Integer, SqlCallable<Integer>>();
+        for (Map.Entry<Integer, List<String>> entry : ShardRouter.groupByShard(gidList, gid -> gid).entrySet()) {
+            List<String> shardGidList = entry.getValue();
+            callableMap.put(entry.getKey(), () -> BaseDao.softDeleteTableByGidList(bean, shardGidList));
+        }
+        return sum(ShardRouter.callOnShards(callableMap, false));
+    }
+
+    /**
+     * Delete a bean by the given gid on its shard.
+     *
+     * @param bean bean object
+     * @param <T>  {@link BaseBean} type class
+     * @return count of deleted rows
+     * @throws Exception exception when delete
+     * @see BaseDao#deleteTableByGid(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int deleteTableByGid(T bean) throws Exception {
+        return ShardRouter.callOnShard(getShardIndex(bean), false, () -> BaseDao.deleteTableByGid(bean));
+    }
+
+    /**
+     * Delete beans by the given gid list, split by the shards of the gids.
+     *
+     * @param bean    bean object
+     * @param gidList a list gid of the beans which will be deleted
+     * @param <T>     {@link BaseBean} type class
+     * @return count of deleted rows
+     * @throws Exception exception when delete
+     * @see BaseDao#deleteTableByGidList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int deleteTableByGidList(T bean, List<String> gidList) throws Exception {
+        Map<Integer, SqlCallable<Integer>> callableMap = new LinkedHashMap<Integer, SqlCallable<Integer>>();
+        for (Map.Entry<Integer, List<String>> entry : ShardRouter.groupByShard(gidList, gid -> gid).entrySet()) {
+            List<String> shardGidList = entry.getValue();
+            callableMap.put(entry.getKey(), () -> BaseDao.deleteTableByGidList(bean, shardGidList));
+        }
+        return sum(ShardRouter.callOnShards(callableMap, false));
+    }
+
+    /**
+     * Query a bean by the given gid on a slave of its shard.
+     *
+     * @param bean bean object
+     * @param <T>  {@link BaseBean} type class
+     * @return the bean of query result
+     * @throws Exception exception when query
+     * @see BaseDao#selectTableByGid(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> T selectTableByGid(T bean) throws Exception {
+        return ShardRouter.callOnShard(getShardIndex(bean), true, () -> BaseDao.selectTableByGid(bean));
+    }
+
+    /**
+     * Query beans by the given gid list, split by the shards of the gids and query on the slaves in parallel.
+     *
+     * @param bean    bean object
+     * @param gidList a list gid of the beans to query
+     * @param <T>     {@link BaseBean} type class
+     * @return the bean list of query result, grouped by shard
+     * @throws Exception exception when query
+     * @see BaseDao#selectTableByGidList(BaseBean, List)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByGidList(T bean, List<String> gidList) throws Exception {
+        Map<Integer, SqlCallable<List<T>>> callableMap = new LinkedHashMap<Integer, SqlCallable<List<T>>>();
+        for (Map.Entry<Integer, List<String>> entry : ShardRouter.groupByShard(gidList, gid -> gid).entrySet()) {
+            List<String> shardGidList = entry.getValue();
+            callableMap.put(entry.getKey(), () -> BaseDao.selectTableByGidList(bean, shardGidList));
+        }
+        List<T> list = new ArrayList<T>(gidList.size());
+        for (List<T> shardList : ShardRouter.callOnShards(callableMap, true)) {
+            list.addAll(shardList);
+        }
+        return list;
+    }
+
+    /**
+     * Count the rows by the param bean on the slaves of all the shards in parallel.
+     *
+     * @param bean the param bean
+     * @param <T>  {@link BaseBean} type class
+     * @return sum of the counts of all the shards
+     * @throws Exception exception when query
+     * @see BaseDao#countTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> int countTableByBean(T bean) throws Exception {
+        return sum(ShardRouter.callOnAllShards(() -> BaseDao.countTableByBean(bean), true));
+    }
+
+    /**
+     * Query beans by the param bean on the slaves of all the shards in parallel.
+     *
+     * @param bean the param bean
+     * @param <T>  {@link BaseBean} type class
+     * @return all query results, grouped by shard
+     * @throws Exception exception when query
+     * @see BaseDao#selectTableByBean(BaseBean)
+     * @since 2.7
+     */
+    public static <T extends BaseBean> List<T> selectTableByBean(T bean) throws Exception {
+        List<T> list = new ArrayList<T>();
+        for (List<T> shardList : ShardRouter.callOnAllShards(() -> BaseDao.selectTableByBean(bean), true)) {
+            list.addAll(shardList);
+        }
+        return list;
+    }
+
+    /**
+     * <p>Query list of beans by the param bean for page on all the shards, match all the not null properties equals.</p>
+     * <p>Each shard counts the rows and selects its first {@code offset + size} rows in the given order in parallel,
+     * then the sorted rows of the shards are merged, so the comparator must sort the beans same as the order by sql,
+     * and it should end with a unique column to make the pages stable. The rows fetched grow with the page number,
+     * so deep pages should be avoided.</p>
+     * <pre>{@code
+     * PageBean<Test> pageBean = ShardDao.selectTableForPage(new Test().setIsValid(1), 1, 20, "id DESC",
+     *         Comparator.comparing(Test::getId).reversed());
+     * }</pre>
+     *
+     * @param bean       the param bean
+     * @param page       page number
+     * @param size       the count of data displayed on each page
+     * @param orderBySql order by sql without {@code ORDER BY}, such as {@code create_time DESC, id DESC},
+     *                   only the columns of the bean with optional {@code ASC} or {@code DESC} are allowed
+     * @param comparator comparator same as the order by sql
+     * @param <T>        {@link BaseBean} type class
+     * @return {@link PageBean} object
+     * @throws Exception exception when query
+     * @see BaseDao#selectTableForPage(BaseBean, int, int)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> PageBean<T> selectTableForPage(T bean, int page, int size, String orderBySql, Comparator<T> comparator) throws Exception {
+        orderBySql = BaseDao.makeOrderBySql(bean, orderBySql);
+        size = Math.max(1, size);
+        page = Math.max(1, page);
+        List<PageSlice<T>> sliceList = selectPageSlice(bean, (page - 1) * size + size, orderBySql);
+        int total = 0;
+        for (PageSlice<T> slice : sliceList) {
+            total += slice.count;
+        }
+        PageBean pageBean = new PageBean().setTotal(total).setPage(1).setData(new ArrayList<T>());
+        if (total == 0) {
+            return pageBean;
+        }
+        int offset = (page - 1) * size;
+        if (offset >= total) {
+            page = (total - 1) / size + 1;
+            offset = (page - 1) * size;
+            sliceList = selectPageSlice(bean, offset + size, orderBySql);
+        }
+        return pageBean.setPage(page).setData(merge(sliceList, comparator, offset, size));
+    }
+
+    /**
+     * Count the rows and select the first rows in the given order on all the shards in parallel.
+     *
+     * @param bean       the param bean
+     * @param limit      max count of rows of each shard
+     * @param orderBySql order by sql without {@code ORDER BY}
+     * @param <T>        {@link BaseBean} type class
+     * @return slices of all the shards
+     * @throws Exception exception when query
+     * @since 2.7
+     */
+    private static <T extends BaseBean> List<PageSlice<T>> selectPageSlice(T bean, int limit, String orderBySql) throws Exception {
+        return ShardRouter.callOnAllShards(() -> {
+            int count = BaseDao.countTableByBean(bean);
+            List<T> list = count == 0 ? new ArrayList<T>() : BaseDao.selectTableByBean(bean, orderBySql, limit);
+            return new PageSlice<T>(count, list);
+        }, true);
+    }
+
+    /**
+     * K-way merge the sorted rows of the shards and get the rows of the page.
+     *
+     * @param sliceList  slices of all the shards
+     * @param comparator comparator same as the order of the rows
+     * @param offset     offset of the page
+     * @param size       the count of data displayed on each page
+     * @param <T>        {@link BaseBean} type class
+     * @return rows of the page
+     * @since 2.7
+     */
+    private static <T extends BaseBean> List<T> merge(List<PageSlice<T>> sliceList, Comparator<T> comparator, int offset, int size) {
+        PriorityQueue<PageCursor<T>> queue = new PriorityQueue<PageCursor<T>>(sliceList.size(), (a, b) -> comparator.compare(a.current(), b.current()));
+        for (PageSlice<T> slice : sliceList) {
+            if (!slice.list.isEmpty()) {
+                queue.add(new PageCursor<T>(slice.list));
+            }
+        }
+        List<T> data = new ArrayList<T>(size);
+        int index = 0;
+        while (!queue.isEmpty() && data.size() < size) {
+            PageCursor<T> cursor = queue.poll();
+            if (index++ >= offset) {
+                data.add(cursor.current());
+            }
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Get the shard index of the bean by its gid.
+     *
+     * @param bean bean object
+     * @return index of the shard
+     * @since 2.7
+     */
+    private static int getShardIndex(BaseBean bean) {
+        return ShardRouter.getShardIndex(getGid(bean));
+    }
+
+    /**
+     * Get the gid of the bean.
+     *
+     * @param bean bean object
+     * @return the gid, {@code null} when not set
+     * @since 2.7
+     */
+    private static String getGid(BaseBean bean) {
+        Object gid = bean.columnMap(false).get("gid");
+        return gid == null ? null : gid.toString();
+    }
+
+    /**
+     * Sum the counts of all the shards.
+     *
+     * @param countList counts of the shards
+     * @return sum of the counts
+     * @since 2.7
+     */
+    private static int sum(List<Integer> countList) {
+        int sum = 0;
+        for (Integer count : countList) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * Count and the first sorted rows of a shard.
+     *
+     * @param <T> {@link BaseBean} type class
+     * @since 2.7
+     */
+    private static class PageSlice<T> {
+
+        private final int count;
+
+        private final List<T> list;
+
+        private PageSlice(int count, List<T> list) {
+            this.count = count;
+            this.list = list;
+        }
+    }
+
+    /**
+     * Cursor on the sorted rows of a shard for merge.
+     *
+     * @param <T> {@link BaseBean} type class
+     * @since 2.7
+     */
+    private static class PageCursor<T> {
+
+        private final List<T> list;
+
+        private int index;
+
+        private PageCursor(List<T> list) {
+            this.list = list;
+        }
+
+        private T current() {
+            return list.get(index);
+        }
+
+        private boolean next() {
+            return ++index < list.size();
+        }
+    }
+
+}
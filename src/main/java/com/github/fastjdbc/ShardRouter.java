@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * <p>A router which maps the gid of rows to shards, each shard is a group of master and slave datasources.</p>
+ * <p>You should call {@link #init(List, ShardStrategy)} method to init the shards on system start only one time,
+ * the shards are independent from the pools of {@link ConnectionPool}, and used by {@link ShardDao}.</p>
+ * <pre>{@code
+ * ShardRouter.init(List.of(new Shard(master0, List.of(slave0)), new Shard(master1, List.of(slave1))), ShardStrategy.hash());
+ * }</pre>
+ *
+ * @since 2.7
+ */
+public class ShardRouter {
+
+    /**
+     * All the shards.
+     *
+     * @since 2.7
+     */
+    private static volatile List<Shard> SHARD_LIST = Collections.emptyList();
+
+    /**
+     * Strategy to map a gid to a shard.
+     *
+     * @since 2.7
+     */
+    private static volatile ShardStrategy STRATEGY;
+
+    /**
+     * <p>Initialization method for init the shards.</p>
+     *
+     * @param shardList all the shards, the order must never change after rows written
+     * @param strategy  strategy to map a gid to a shard
+     * @since 2.7
+     */
+    public static synchronized void init(List<Shard> shardList, ShardStrategy strategy) {
+        if (SHARD_LIST.isEmpty()) {
+            if (shardList == null || shardList.isEmpty()) {
+                throw new RuntimeException("shard list must not empty");
+            }
+            if (strategy == null) {
+                throw new RuntimeException("shard strategy must not null");
+            }
+            STRATEGY = strategy;
+            SHARD_LIST = Collections.unmodifiableList(new ArrayList<Shard>(shardList));
+        }
+    }
+
+    /**
+     * Get the count of shards.
+     *
+     * @return count of shards
+     * @since 2.7
+     */
+    public static int getShardCount() {
+        return getShardList().size();
+    }
+
+    /**
+     * Get the shard by index.
+     *
+     * @param shardIndex index of the shard
+     * @return {@link Shard} object
+     * @since 2.7
+     */
+    public static Shard getShard(int shardIndex) {
+        return getShardList().get(shardIndex);
+    }
+
+    /**
+     * Get the index of the shard which the gid belongs to.
+     *
+     * @param gid the gid
+     * @return index of the shard
+     * @since 2.7
+     */
+    public static int getShardIndex(String gid) {
+        if (gid == null) {
+            throw new RuntimeException("gid must not null");
+        }
+        int shardCount = getShardCount();
+        int shardIndex = STRATEGY.getShardIndex(gid, shardCount);
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new RuntimeException("shard index " + shardIndex + " out of range for gid " + gid);
+        }
+        return shardIndex;
+    }
+
+    /**
+     * Get all the datasources of all the shards, the list is empty when not initialized.
+     *
+     * @return list of datasource
+     * @since 2.7
+     */
+    static List<DataSource> getAllDataSource() {
+        List<DataSource> dataSourceList = new ArrayList<DataSource>();
+        for (Shard shard : SHARD_LIST) {
+            dataSourceList.addAll(shard.getAllDataSource());
+        }
+        return dataSourceList;
+    }
+
+    /**
+     * Group the elements by the shard of their gids, the order of elements in each group is kept.
+     *
+     * @param list      elements to group
+     * @param gidGetter function to get the gid of an element
+     * @param <E>       the element type
+     * @return map of elements, key is shard index, sorted by shard index
+     * @since 2.7
+     */
+    static <E> Map<Integer, List<E>> groupByShard(List<E> list, Function<E, String> gidGetter) {
+        Map<Integer, List<E>> shardMap = new TreeMap<Integer, List<E>>();
+        for (E element : list) {
+            shardMap.computeIfAbsent(getShardIndex(gidGetter.apply(element)), k -> new ArrayList<E>()).add(element);
+        }
+        return shardMap;
+    }
+
+    /**
+     * <p>Run the unit of work on a shard with a new connection on the executor of {@link AsyncDao}.</p>
+     *
+     * @param shardIndex index of the shard
+     * @param readOnly   true to run on a slave datasource, false to run on the master datasource in a transaction
+     * @param callable   the unit of work
+     * @param <R>        the result type
+     * @return the result of the work
+     * @throws Exception exception when the work failed
+     * @since 2.7
+     */
+    static <R> R callOnShard(int shardIndex, boolean readOnly, SqlCallable<R> callable) throws Exception {
+        return callOnShards(Collections.singletonMap(shardIndex, callable), readOnly).get(0);
+    }
+
+    /**
+     * <p>Run the same unit of work on all the shards in parallel, each with a new connection on the executor of {@link AsyncDao}.</p>
+     *
+     * @param callable the unit of work
+     * @param readOnly true to run on slave datasources, false to run on master datasources in transactions
+     * @param <R>      the result type
+     * @return results in the order of shards
+     * @throws Exception the first exception when any work failed, after all the works finished
+     * @since 2.7
+     */
+    static <R> List<R> callOnAllShards(SqlCallable<R> callable, boolean readOnly) throws Exception {
+        int shardCount = getShardCount();
+        Map<Integer, SqlCallable<R>> callableMap = new TreeMap<Integer, SqlCallable<R>>();
+        for (int i = 0; i < shardCount; i++) {
+            callableMap.put(i, callable);
+        }
+        return callOnShards(callableMap, readOnly);
+    }
+
+    /**
+     * <p>Run the units of work on their shards in parallel, each with a new connection on the executor of {@link AsyncDao}.</p>
+     * <p>Each shard commits or rolls back its own transaction, so the writes on different shards are not atomic.</p>
+     *
+     * @param callableMap units of work, key is shard index
+     * @param readOnly    true to run on slave datasources, false to run on master datasources in transactions
+     * @param <R>         the result type
+     * @return results in the order of the map
+     * @throws Exception the first exception when any work failed, after all the works finished
+     * @since 2.7
+     */
+    static <R> List<R> callOnShards(Map<Integer, SqlCallable<R>> callableMap, boolean readOnly) throws Exception {
+        List<CompletableFuture<R>> futureList = new ArrayList<CompletableFuture<R>>(callableMap.size());
+        for (Map.Entry<Integer, SqlCallable<R>> entry : callableMap.entrySet()) {
+            Shard shard = getShard(entry.getKey());
+            DataSource dataSource = readOnly ? shard.getSlaveDataSource() : shard.getMasterDataSource();
+            futureList.add(AsyncDao.supplyAsync(dataSource, readOnly, entry.getValue()));
+        }
+        List<R> resultList = new ArrayList<R>(futureList.size());
+        Exception exception = null;
+        for (CompletableFuture<R> future : futureList) {
+            try {
+                resultList.add(future.get());
+            } catch (ExecutionException e) {
+                if (exception == null) {
+                    Throwable cause = e.getCause();
+                    exception = cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return resultList;
+    }
+
+    /**
+     * Get the shard list and check it's initialized.
+     *
+     * @return list of shard
+     * @since 2.7
+     */
+    private static List<Shard> getShardList() {
+        List<Shard> shardList = SHARD_LIST;
+        if (shardList.isEmpty()) {
+            throw new RuntimeException("shard router must init before use");
+        }
+        return shardList;
+    }
+
+}
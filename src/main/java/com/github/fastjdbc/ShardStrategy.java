@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A strategy which maps a gid to the index of a shard in {@link ShardRouter}.</p>
+ * <p>The mapping of a gid must never change after rows written, or the rows can not be found again.</p>
+ *
+ * @since 2.7
+ */
+@FunctionalInterface
+public interface ShardStrategy {
+
+    /**
+     * Get the index of the shard which the gid belongs to.
+     *
+     * @param gid        the gid
+     * @param shardCount count of the shards
+     * @return index of the shard, from {@code 0} to {@code shardCount - 1}
+     * @since 2.7
+     */
+    int getShardIndex(String gid, int shardCount);
+
+    /**
+     * <p>A strategy which maps the gid by the modulus of its {@link String#hashCode()}.</p>
+     * <p>The hash code of {@link String} is defined by the specification, so it's stable across JVMs.</p>
+     *
+     * @return the hash strategy
+     * @since 2.7
+     */
+    static ShardStrategy hash() {
+        return (gid, shardCount) -> Math.floorMod(gid.hashCode(), shardCount);
+    }
+
+    /**
+     * <p>A strategy which maps the gid by ranges, shard {@code i} holds the gids from split {@code i - 1}(inclusive)
+     * to split {@code i}(exclusive), so the count of splits should be count of shards minus one.</p>
+     * <p>It fits the time ordered gids, the new shard takes the new rows by adding a split.</p>
+     *
+     * @param splitList ascending split gids
+     * @return the range strategy
+     * @since 2.7
+     */
+    static ShardStrategy range(List<String> splitList) {
+        List<String> sortedSplitList = new ArrayList<String>(splitList);
+        Collections.sort(sortedSplitList);
+        return (gid, shardCount) -> {
+            if (sortedSplitList.size() != shardCount - 1) {
+                throw new RuntimeException("count of splits must be count of shards minus one");
+            }
+            int index = Collections.binarySearch(sortedSplitList, gid);
+            return index >= 0 ? index + 1 : -index - 1;
+        };
+    }
+
+}
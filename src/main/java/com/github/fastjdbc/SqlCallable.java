@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+/**
+ * <p>A unit of database work which returns a result and may throw an exception.</p>
+ * <p>The work is called after the thread bound connection is ready, so all the static methods
+ * of {@link BaseDao} can be used in it directly.</p>
+ *
+ * @param <R> the result type
+ * @since 2.7
+ */
+@FunctionalInterface
+public interface SqlCallable<R> {
+
+    /**
+     * Run the unit of work.
+     *
+     * @return the result of the work
+     * @throws Exception exception when the work failed
+     * @since 2.7
+     */
+    R call() throws Exception;
+
+}
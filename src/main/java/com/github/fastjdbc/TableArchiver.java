@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>An archiver which moves the soft deleted rows ({@code is_valid = 0}) not updated since a time
+ * to the archive table named by the table name with {@link ArchiveDao#ARCHIVE_SUFFIX}, such as {@code test_archive}.</p>
+ * <p>The ids from min to max are walked in chunks of the chunk size, each chunk locks the matched rows,
+ * copies them to the archive table and deletes them in one transaction of the master pool, so a row is never lost
+ * or copied twice. The chunks are throttled same as {@link TablePurger}, and saved to the {@link ScanCheckpoint}
+ * when set, so a restarted archive skips the completed chunks.</p>
+ * <p>The checkpoint covers a single run: it's deleted when the archive completes, so the next run walks all the
+ * chunks again and archives the rows soft deleted since. Resume a failed run with the same before time,
+ * as the completed chunks are not archived again for a later before time.</p>
+ * <pre>{@code
+ * long count = new TableArchiver()
+ *         .setChunkSize(1000)
+ *         .setMaxRowsPerSecond(5000)
+ *         .setCheckpoint(new FileScanCheckpoint(Path.of("/data/job/test.archive")))
+ *         .archiveTable(new Test(), System.currentTimeMillis() / 1000 - 90 * 86400);
+ * }</pre>
+ * <p>Note: the archive table is created like the table when not exists, and should be altered together with the table.
+ * It gets its own connections, so it should be called when current thread has no connection.</p>
+ *
+ * @see ArchiveDao
+ * @since 2.7
+ */
+public class TableArchiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableArchiver.class);
+
+    /**
+     * Count of ids in each chunk.
+     *
+     * @since 2.7
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Checkpoint of the completed chunks, {@code null} for no checkpoint.
+     *
+     * @since 2.7
+     */
+    private ScanCheckpoint checkpoint;
+
+    /**
+     * Throttle between the chunks.
+     *
+     * @since 2.7
+     */
+    private final Throttle throttle = new Throttle();
+
+    /**
+     * Count of the rows archived by the last archive.
+     *
+     * @since 2.7
+     */
+    private long archivedCount;
+
+    /**
+     * Count of the chunks executed by the last archive.
+     *
+     * @since 2.7
+     */
+    private long chunkCount;
+
+    /**
+     * <p>Move the soft deleted rows which {@code update_time} is before the given time to the archive table.</p>
+     *
+     * @param bean       bean object
+     * @param beforeTime epoch seconds, the rows updated before it are archived
+     * @param <T>        {@link BaseBean} type class
+     * @return count of archived rows
+     * @throws Exception exception when archive failed, the chunks before are committed
+     * @since 2.7
+     */
+    public <T extends BaseBean> long archiveTable(T bean, long beforeTime) throws Exception {
+        archivedCount = 0;
+        chunkCount = 0;
+        throttle.reset();
+        String tableName = bean.tableName();
+        String archiveTableName = ArchiveDao.getArchiveTableName(bean);
+        long[] idRange = ConnectionPool.callInConnection(null, () -> {
+            BaseDao.executeUpdate("CREATE TABLE IF NOT EXISTS " + archiveTableName + " LIKE " + tableName, null);
+            ResultSet rs = null;
+            try {
+                rs = BaseDao.executeSelectReturnResultSet("SELECT MIN(id), MAX(id) FROM " + tableName, null);
+                if (rs.next()) {
+                    long minId = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        return new long[]{minId, rs.getLong(2)};
+                    }
+                }
+                return null;
+            } finally {
+                ConnectionPool.close(rs);
+            }
+        });
+        if (idRange == null) {
+            if (checkpoint != null) {
+                checkpoint.delete();
+            }
+            return 0;
+        }
+        String selectSql = "SELECT id FROM " + tableName + " WHERE id >= ? AND id < ? AND is_valid = 0 AND update_time < ? FOR UPDATE";
+        for (long startId = Math.floorDiv(idRange[0], chunkSize) * chunkSize; startId <= idRange[1]; startId += chunkSize) {
+            if (checkpoint != null && checkpoint.isCompleted(startId)) {
+                continue;
+            }
+            long start = throttle.beforeChunk();
+            List<Object> paramList = new ArrayList<Object>(List.of(startId, startId + chunkSize, beforeTime));
+            int count = ConnectionPool.callInConnection(null, () -> {
+                List<Long> idList = BaseDao.executeSelectReturnLongList(selectSql, paramList);
+                if (idList.isEmpty()) {
+                    return 0;
+                }
+                String inStr = BaseDao.makeInStr(idList);
+                BaseDao.executeUpdate("INSERT INTO " + archiveTableName + " SELECT * FROM " + tableName + " WHERE id" + inStr, idList);
+                return BaseDao.executeUpdate("DELETE FROM " + tableName + " WHERE id" + inStr, idList);
+            });
+            if (checkpoint != null) {
+                checkpoint.complete(startId, startId + chunkSize);
+            }
+            archivedCount += count;
+            chunkCount++;
+            throttle.afterChunk(count, start);
+        }
+        if (checkpoint != null) {
+            checkpoint.delete();
+        }
+        LOGGER.info("Archive table {} finished, {} rows in {} chunks, throttled {}ms", tableName, archivedCount, chunkCount, throttle.getThrottledMillis());
+        return archivedCount;
+    }
+
+    /**
+     * Get the count of the rows archived by the last archive, it's increasing during the archive.
+     *
+     * @return count of the archived rows
+     * @since 2.7
+     */
+    public long getArchivedCount() {
+        return archivedCount;
+    }
+
+    /**
+     * Get the count of the chunks executed by the last archive.
+     *
+     * @return count of the chunks
+     * @since 2.7
+     */
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Get the milliseconds slept for throttling by the last archive.
+     *
+     * @return milliseconds slept
+     * @since 2.7
+     */
+    public long getThrottledMillis() {
+        return throttle.getThrottledMillis();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public TableArchiver setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    public ScanCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    public TableArchiver setCheckpoint(ScanCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    public long getMaxRowsPerSecond() {
+        return throttle.getMaxRowsPerSecond();
+    }
+
+    public TableArchiver setMaxRowsPerSecond(long maxRowsPerSecond) {
+        throttle.setMaxRowsPerSecond(maxRowsPerSecond);
+        return this;
+    }
+
+    public ReplicationLagProbe getReplicationLagProbe() {
+        return throttle.getReplicationLagProbe();
+    }
+
+    public long getMaxLagMillis() {
+        return throttle.getMaxLagMillis();
+    }
+
+    /**
+     * Set the probe of the replication lag, the archiver waits before each chunk while the lag is more than the max lag.
+     *
+     * @param replicationLagProbe probe of the replication lag, {@code null} for not checking the lag
+     * @param maxLagMillis        max replication lag in milliseconds
+     * @return this archiver
+     * @since 2.7
+     */
+    public TableArchiver setReplicationLagProbe(ReplicationLagProbe replicationLagProbe, long maxLagMillis) {
+        throttle.setReplicationLagProbe(replicationLagProbe, maxLagMillis);
+        return this;
+    }
+
+    public long getMaxLagWaitMillis() {
+        return throttle.getMaxLagWaitMillis();
+    }
+
+    /**
+     * Set the max time to wait for the replication lag before a chunk, the archive fails with
+     * {@link java.sql.SQLTimeoutException} when the lag is still more than the max lag, default 10 minutes.
+     *
+     * @param maxLagWaitMillis max milliseconds to wait, {@code 0} for no limit
+     * @return this archiver
+     * @since 2.7
+     */
+    public TableArchiver setMaxLagWaitMillis(long maxLagWaitMillis) {
+        throttle.setMaxLagWaitMillis(maxLagWaitMillis);
+        return this;
+    }
+
+}
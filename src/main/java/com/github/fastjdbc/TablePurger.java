@@ -0,0 +1,313 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A purger which deletes or soft deletes a large amount of rows in chunks, each chunk is a transaction with its own
+ * connection of the master pool, so the locks are held shortly and the slaves replicate small transactions.</p>
+ * <p>The purger is throttled between the chunks: it keeps the rows per second under the max rows per second,
+ * and waits while the replication lag of the {@link ReplicationLagProbe} is more than the max lag, the purge fails
+ * when the lag is still more than the max lag after the max lag wait time.</p>
+ * <pre>{@code
+ * long count = new TablePurger()
+ *         .setChunkSize(1000)
+ *         .setMaxRowsPerSecond(5000)
+ *         .setReplicationLagProbe(ReplicationLagProbe.ofSlavePool("slave"), 1000)
+ *         .deleteTableByBean(new Test().setIsValid(0));
+ * }</pre>
+ * <p>Note: it gets its own connections, so it should be called when current thread has no connection,
+ * and the purger is not thread safe.</p>
+ *
+ * @since 2.7
+ */
+public class TablePurger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TablePurger.class);
+
+    /**
+     * Max count of rows of each chunk.
+     *
+     * @since 2.7
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Throttle between the chunks.
+     *
+     * @since 2.7
+     */
+    private final Throttle throttle = new Throttle();
+
+    /**
+     * Count of the rows purged by the last purge.
+     *
+     * @since 2.7
+     */
+    private long purgedCount;
+
+    /**
+     * Count of the chunks executed by the last purge.
+     *
+     * @since 2.7
+     */
+    private long chunkCount;
+
+    /**
+     * <p>Delete the rows match all the not null properties of the param bean, chunk by chunk in ascending order of id.</p>
+     *
+     * @param bean the param bean, at least one property should not null
+     * @param <T>  {@link BaseBean} type class
+     * @return count of deleted rows
+     * @throws Exception exception when delete failed, the chunks before are committed
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseBean> long deleteTableByBean(T bean) throws Exception {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        if (columnMap.isEmpty()) {
+            throw new RuntimeException("condition must not empty to purge table " + bean.tableName());
+        }
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 1);
+        String sql = "DELETE FROM " + bean.tableName() + " WHERE " + BaseDao.makeColumnParamSql(columnMap, paramList, " AND ") + " ORDER BY id LIMIT ?";
+        paramList.add(chunkSize);
+        return purge(sql, paramList);
+    }
+
+    /**
+     * <p>Soft delete the valid rows match all the not null properties except {@code is_valid} of the param bean,
+     * chunk by chunk in ascending order of id.</p>
+     *
+     * @param bean the param bean, at least one property except {@code is_valid} should not null
+     * @param <T>  {@link BaseBean} type class
+     * @return count of soft deleted rows
+     * @throws Exception exception when soft delete failed, the chunks before are committed
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseBean> long softDeleteTableByBean(T bean) throws Exception {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        columnMap.remove("is_valid");
+        if (columnMap.isEmpty()) {
+            throw new RuntimeException("condition must not empty to purge table " + bean.tableName());
+        }
+        List<Object> paramList = new ArrayList<Object>(columnMap.size() + 1);
+        String sql = "UPDATE " + bean.tableName() + " SET is_valid = 0 WHERE " + BaseDao.makeColumnParamSql(columnMap, paramList, " AND ")
+                + " AND is_valid = 1 ORDER BY id LIMIT ?";
+        paramList.add(chunkSize);
+        return purge(sql, paramList);
+    }
+
+    /**
+     * Delete the rows of the given id list, chunk by chunk of the chunk size.
+     *
+     * @param bean   bean object
+     * @param idList a list id of the beans which will be deleted
+     * @param <T>    {@link BaseBean} type class
+     * @return count of deleted rows
+     * @throws Exception exception when delete failed, the chunks before are committed
+     * @see BaseDao#deleteTableByIdList(BaseBean, List)
+     * @since 2.7
+     */
+    public <T extends BaseBean> long deleteTableByIdList(T bean, List<? extends Number> idList) throws Exception {
+        return purgeIdList(idList, chunkIdList -> BaseDao.deleteTableByIdList(bean, chunkIdList));
+    }
+
+    /**
+     * Soft delete the rows of the given id list, chunk by chunk of the chunk size.
+     *
+     * @param bean   bean object
+     * @param idList a list id of the beans which will be soft deleted
+     * @param <T>    {@link BaseBean} type class
+     * @return count of soft deleted rows
+     * @throws Exception exception when soft delete failed, the chunks before are committed
+     * @see BaseDao#softDeleteTableByIdList(BaseBean, List)
+     * @since 2.7
+     */
+    public <T extends BaseBean> long softDeleteTableByIdList(T bean, List<? extends Number> idList) throws Exception {
+        return purgeIdList(idList, chunkIdList -> BaseDao.softDeleteTableByIdList(bean, chunkIdList));
+    }
+
+    /**
+     * Get the count of the rows purged by the last purge, it's increasing during the purge.
+     *
+     * @return count of the purged rows
+     * @since 2.7
+     */
+    public long getPurgedCount() {
+        return purgedCount;
+    }
+
+    /**
+     * Get the count of the chunks executed by the last purge.
+     *
+     * @return count of the chunks
+     * @since 2.7
+     */
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Get the milliseconds slept for throttling by the last purge.
+     *
+     * @return milliseconds slept
+     * @since 2.7
+     */
+    public long getThrottledMillis() {
+        return throttle.getThrottledMillis();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public TablePurger setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    public long getMaxRowsPerSecond() {
+        return throttle.getMaxRowsPerSecond();
+    }
+
+    public TablePurger setMaxRowsPerSecond(long maxRowsPerSecond) {
+        throttle.setMaxRowsPerSecond(maxRowsPerSecond);
+        return this;
+    }
+
+    public ReplicationLagProbe getReplicationLagProbe() {
+        return throttle.getReplicationLagProbe();
+    }
+
+    public long getMaxLagMillis() {
+        return throttle.getMaxLagMillis();
+    }
+
+    /**
+     * Set the probe of the replication lag, the purger waits before each chunk while the lag is more than the max lag.
+     *
+     * @param replicationLagProbe probe of the replication lag, {@code null} for not checking the lag
+     * @param maxLagMillis        max replication lag in milliseconds
+     * @return this purger
+     * @since 2.7
+     */
+    public TablePurger setReplicationLagProbe(ReplicationLagProbe replicationLagProbe, long maxLagMillis) {
+        throttle.setReplicationLagProbe(replicationLagProbe, maxLagMillis);
+        return this;
+    }
+
+    public long getMaxLagWaitMillis() {
+        return throttle.getMaxLagWaitMillis();
+    }
+
+    /**
+     * Set the max time to wait for the replication lag before a chunk, the purge fails with
+     * {@link java.sql.SQLTimeoutException} when the lag is still more than the max lag, default 10 minutes.
+     *
+     * @param maxLagWaitMillis max milliseconds to wait, {@code 0} for no limit
+     * @return this purger
+     * @since 2.7
+     */
+    public TablePurger setMaxLagWaitMillis(long maxLagWaitMillis) {
+        throttle.setMaxLagWaitMillis(maxLagWaitMillis);
+        return this;
+    }
+
+    /**
+     * Execute the sql with limit in separate transactions until the affected rows less than the chunk size.
+     *
+     * @param sql       sql with {@code LIMIT} of the chunk size
+     * @param paramList param list
+     * @return count of affected rows
+     * @throws Exception exception when execute failed
+     * @since 2.7
+     */
+    private long purge(String sql, List<Object> paramList) throws Exception {
+        reset();
+        int count;
+        do {
+            long start = throttle.beforeChunk();
+            count = ConnectionPool.callInConnection(null, () -> BaseDao.executeUpdate(sql, paramList));
+            finishChunk(count, start);
+        } while (count >= chunkSize);
+        LOGGER.info("Purge finished, {} rows in {} chunks, throttled {}ms: {}", purgedCount, chunkCount, throttle.getThrottledMillis(), sql);
+        return purgedCount;
+    }
+
+    /**
+     * Execute the work for each chunk of the id list in separate transactions.
+     *
+     * @param idList       a list id of the beans
+     * @param purgeIdChunk the work to purge a chunk of ids
+     * @return count of affected rows
+     * @throws Exception exception when execute failed
+     * @since 2.7
+     */
+    private long purgeIdList(List<? extends Number> idList, IdChunkPurge purgeIdChunk) throws Exception {
+        reset();
+        for (int from = 0, size = idList.size(); from < size; from += chunkSize) {
+            List<? extends Number> chunkIdList = idList.subList(from, Math.min(size, from + chunkSize));
+            long start = throttle.beforeChunk();
+            finishChunk(ConnectionPool.callInConnection(null, () -> purgeIdChunk.purge(chunkIdList)), start);
+        }
+        return purgedCount;
+    }
+
+    /**
+     * Reset the counters for a new purge.
+     *
+     * @since 2.7
+     */
+    private void reset() {
+        purgedCount = 0;
+        chunkCount = 0;
+        throttle.reset();
+    }
+
+    /**
+     * Count the chunk and sleep to keep the rows per second under the max.
+     *
+     * @param count affected rows of the chunk
+     * @param start start time of the chunk in nanoseconds
+     * @throws InterruptedException when interrupted
+     * @since 2.7
+     */
+    private void finishChunk(int count, long start) throws InterruptedException {
+        purgedCount += count;
+        chunkCount++;
+        throttle.afterChunk(count, start);
+    }
+
+    /**
+     * Work to purge a chunk of ids.
+     *
+     * @since 2.7
+     */
+    @FunctionalInterface
+    private interface IdChunkPurge {
+
+        int purge(List<? extends Number> chunkIdList) throws Exception;
+    }
+
+}
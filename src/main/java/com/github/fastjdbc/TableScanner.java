@@ -0,0 +1,322 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A scanner which processes all the rows of a table by id ranges in parallel.</p>
+ * <p>It finds the min and max id of the rows match the param bean, splits the ids into chunks of the chunk size,
+ * and reads the chunks on the executor of {@link AsyncDao} with at most parallelism chunks at the same time,
+ * each chunk with its own read connection. The rows of each chunk are read into a list, and passed to the
+ * {@link ScanHandler} on the handler threads of the scan after the read connection closed. The completed chunks
+ * are saved to the {@link ScanCheckpoint} when set, so a restarted scan resumes from the uncompleted chunks.</p>
+ * <p>The memory is bounded by the chunk size and the parallelism instead of the table size, as at most parallelism
+ * chunks are held at the same time. The fetch size only makes the driver stream the rows of a chunk instead of
+ * buffering them twice, it doesn't stream the rows to the handler.</p>
+ * <pre>{@code
+ * long rowCount = new TableScanner("slave")
+ *         .setChunkSize(10000)
+ *         .setParallelism(8)
+ *         .scan(new Test().setIsValid(1), (startId, endId, testList) -> process(testList));
+ * }</pre>
+ * <p>Note: the id range is read at the start, the rows inserted after it with larger ids are not scanned.
+ * The handlers run on the threads owned by the scan instead of the executor of {@link AsyncDao}, so a handler
+ * can wait for the futures of {@link AsyncDao} without starving the chunk reads.</p>
+ *
+ * @since 2.7
+ */
+public class TableScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableScanner.class);
+
+    /**
+     * Slave pool name to read the chunks, {@code null} for master pool.
+     *
+     * @since 2.7
+     */
+    private final String slavePoolName;
+
+    /**
+     * Count of ids in each chunk.
+     *
+     * @since 2.7
+     */
+    private long chunkSize = 10000;
+
+    /**
+     * Max count of chunks read and handled at the same time.
+     *
+     * @since 2.7
+     */
+    private int parallelism = 4;
+
+    /**
+     * Fetch size of the chunk statements, {@link Integer#MIN_VALUE} streams the rows in mysql.
+     *
+     * @since 2.7
+     */
+    private int fetchSize = Integer.MIN_VALUE;
+
+    /**
+     * Checkpoint of the completed chunks, {@code null} for no checkpoint.
+     *
+     * @since 2.7
+     */
+    private ScanCheckpoint checkpoint;
+
+    /**
+     * Count of the rows handled by the last scan.
+     *
+     * @since 2.7
+     */
+    private final AtomicLong rowCount = new AtomicLong();
+
+    /**
+     * Count of the chunks handled by the last scan.
+     *
+     * @since 2.7
+     */
+    private final AtomicLong chunkCount = new AtomicLong();
+
+    /**
+     * Count of the chunks skipped by the checkpoint in the last scan.
+     *
+     * @since 2.7
+     */
+    private final AtomicLong skippedChunkCount = new AtomicLong();
+
+    /**
+     * Create a scanner which reads on the given pool.
+     *
+     * @param slavePoolName slave pool name, {@code null} for master pool
+     * @since 2.7
+     */
+    public TableScanner(String slavePoolName) {
+        this.slavePoolName = slavePoolName;
+    }
+
+    /**
+     * <p>Scan all the rows match the not null properties except id of the param bean.</p>
+     *
+     * @param bean    the param bean
+     * @param handler handler of the rows of each chunk
+     * @param <T>     {@link BaseBean} type class
+     * @return count of the rows handled
+     * @throws Exception the first exception of reading or handling the chunks, after the running chunks finished
+     * @since 2.7
+     */
+    public <T extends BaseBean> long scan(T bean, ScanHandler<T> handler) throws Exception {
+        rowCount.set(0);
+        chunkCount.set(0);
+        skippedChunkCount.set(0);
+        long[] idRange = call(() -> selectIdRange(bean));
+        if (idRange == null) {
+            return 0;
+        }
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        ExecutorService handlerExecutor = createHandlerExecutor(bean.tableName());
+        long startTime = System.currentTimeMillis();
+        try {
+            for (long startId = Math.floorDiv(idRange[0], chunkSize) * chunkSize; startId <= idRange[1] && failure.get() == null; startId += chunkSize) {
+                if (checkpoint != null && checkpoint.isCompleted(startId)) {
+                    skippedChunkCount.incrementAndGet();
+                    continue;
+                }
+                permits.acquire();
+                long chunkStartId = startId;
+                long chunkEndId = startId + chunkSize;
+                AsyncDao.supplyAsync(slavePoolName, () -> BaseDao.selectTableByIdRange(bean, chunkStartId, chunkEndId, fetchSize))
+                        .whenCompleteAsync((beanList, e) -> {
+                            try {
+                                if (e != null) {
+                                    throw e;
+                                }
+                                handler.handle(chunkStartId, chunkEndId, beanList);
+                                if (checkpoint != null) {
+                                    checkpoint.complete(chunkStartId, chunkEndId);
+                                }
+                                rowCount.addAndGet(beanList.size());
+                                chunkCount.incrementAndGet();
+                            } catch (Throwable t) {
+                                failure.compareAndSet(null, t);
+                            } finally {
+                                permits.release();
+                            }
+                        }, handlerExecutor);
+            }
+        } finally {
+            permits.acquireUninterruptibly(parallelism);
+            handlerExecutor.shutdown();
+        }
+        Throwable e = failure.get();
+        if (e != null) {
+            throw e instanceof Exception ? (Exception) e : new ExecutionException(e);
+        }
+        LOGGER.info("Scan table {} finished, {} rows in {} chunks, {} chunks skipped, cost {}ms", bean.tableName(),
+                rowCount.get(), chunkCount.get(), skippedChunkCount.get(), System.currentTimeMillis() - startTime);
+        return rowCount.get();
+    }
+
+    /**
+     * Get the count of the rows handled by the last scan, it's increasing during the scan.
+     *
+     * @return count of the rows
+     * @since 2.7
+     */
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    /**
+     * Get the count of the chunks handled by the last scan, it's increasing during the scan.
+     *
+     * @return count of the chunks
+     * @since 2.7
+     */
+    public long getChunkCount() {
+        return chunkCount.get();
+    }
+
+    /**
+     * Get the count of the chunks skipped by the checkpoint in the last scan.
+     *
+     * @return count of the skipped chunks
+     * @since 2.7
+     */
+    public long getSkippedChunkCount() {
+        return skippedChunkCount.get();
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public TableScanner setChunkSize(long chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public TableScanner setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public TableScanner setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public ScanCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    public TableScanner setCheckpoint(ScanCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Create the executor of the handlers of a scan, with a thread for each chunk handled at the same time.
+     *
+     * @param tableName table name of the scan
+     * @return executor of the handlers
+     * @since 2.7
+     */
+    private ExecutorService createHandlerExecutor(String tableName) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "fastjdbc-scan-" + tableName + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Select the min and max id of the rows match the not null properties except id of the param bean.
+     *
+     * @param bean the param bean
+     * @param <T>  {@link BaseBean} type class
+     * @return array of min and max id, {@code null} when no row
+     * @throws Exception exception when query
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends BaseBean> long[] selectIdRange(T bean) throws Exception {
+        Map<String, Object> columnMap = bean.columnMap(false);
+        columnMap.remove("id");
+        List<Object> paramList = new ArrayList<Object>(columnMap.size());
+        StringBuilder sqlBuilder = new StringBuilder("SELECT MIN(id), MAX(id) FROM ").append(bean.tableName());
+        if (!columnMap.isEmpty()) {
+            sqlBuilder.append(" WHERE ").append(BaseDao.makeColumnParamSql(columnMap, paramList, " AND "));
+        }
+        ResultSet rs = null;
+        try {
+            rs = BaseDao.executeSelectReturnResultSet(sqlBuilder.toString(), paramList);
+            if (rs.next()) {
+                long minId = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return new long[]{minId, rs.getLong(2)};
+                }
+            }
+            return null;
+        } finally {
+            ConnectionPool.close(rs);
+        }
+    }
+
+    /**
+     * Run the work with a new connection of the read pool and wait for the result.
+     *
+     * @param callable the unit of work
+     * @param <R>      the result type
+     * @return the result of the work
+     * @throws Exception exception when the work failed
+     * @since 2.7
+     */
+    private <R> R call(SqlCallable<R> callable) throws Exception {
+        try {
+            return AsyncDao.supplyAsync(slavePoolName, callable).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+}
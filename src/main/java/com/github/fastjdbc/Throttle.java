@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A throttle of chunked writes, it keeps the rows per second under the max rows per second,
+ * and waits while the replication lag of the {@link ReplicationLagProbe} is more than the max lag.
+ * The wait fails after the max lag wait time, as the lag never recovers when the replication stopped.</p>
+ *
+ * @see TablePurger
+ * @see TableArchiver
+ * @since 2.7
+ */
+class Throttle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Throttle.class);
+
+    /**
+     * Interval to check the replication lag again while waiting.
+     *
+     * @since 2.7
+     */
+    private static final long LAG_CHECK_INTERVAL_MILLIS = 500;
+
+    /**
+     * Max rows per second, {@code 0} for no limit.
+     *
+     * @since 2.7
+     */
+    private long maxRowsPerSecond;
+
+    /**
+     * Probe of the replication lag, {@code null} for not checking the lag.
+     *
+     * @since 2.7
+     */
+    private ReplicationLagProbe replicationLagProbe;
+
+    /**
+     * Max replication lag in milliseconds.
+     *
+     * @since 2.7
+     */
+    private long maxLagMillis;
+
+    /**
+     * Max milliseconds to wait for the replication lag before a chunk, {@code 0} for no limit.
+     *
+     * @since 2.7
+     */
+    private long maxLagWaitMillis = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Milliseconds slept since reset.
+     *
+     * @since 2.7
+     */
+    private long throttledMillis;
+
+    /**
+     * Wait while the replication lag is more than the max lag, it's called before each chunk.
+     *
+     * @return start time of the chunk in nanoseconds
+     * @throws SQLTimeoutException when the lag is still more than the max lag after the max lag wait time
+     * @throws Exception           exception when probe failed or interrupted
+     * @since 2.7
+     */
+    long beforeChunk() throws Exception {
+        if (replicationLagProbe != null) {
+            long lagMillis = replicationLagProbe.getLagMillis();
+            if (lagMillis > maxLagMillis) {
+                LOGGER.warn("Replication lag {}ms is more than {}ms, wait at most {}ms", lagMillis, maxLagMillis, maxLagWaitMillis);
+                long waitedMillis = 0;
+                do {
+                    if (maxLagWaitMillis > 0 && waitedMillis >= maxLagWaitMillis) {
+                        throw new SQLTimeoutException("Replication lag " + lagMillis + "ms is still more than " + maxLagMillis
+                                + "ms after waiting " + waitedMillis + "ms, the replication may be stopped");
+                    }
+                    sleep(LAG_CHECK_INTERVAL_MILLIS);
+                    waitedMillis += LAG_CHECK_INTERVAL_MILLIS;
+                    lagMillis = replicationLagProbe.getLagMillis();
+                    LOGGER.debug("Replication lag {}ms after waiting {}ms", lagMillis, waitedMillis);
+                } while (lagMillis > maxLagMillis);
+            }
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Sleep to keep the rows per second under the max, it's called after each chunk.
+     *
+     * @param count affected rows of the chunk
+     * @param start start time of the chunk in nanoseconds
+     * @throws InterruptedException when interrupted
+     * @since 2.7
+     */
+    void afterChunk(int count, long start) throws InterruptedException {
+        if (maxRowsPerSecond > 0 && count > 0) {
+            long costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            sleep(count * 1000L / maxRowsPerSecond - costMillis);
+        }
+    }
+
+    /**
+     * Reset the throttled time.
+     *
+     * @since 2.7
+     */
+    void reset() {
+        throttledMillis = 0;
+    }
+
+    long getThrottledMillis() {
+        return throttledMillis;
+    }
+
+    long getMaxRowsPerSecond() {
+        return maxRowsPerSecond;
+    }
+
+    void setMaxRowsPerSecond(long maxRowsPerSecond) {
+        this.maxRowsPerSecond = Math.max(0, maxRowsPerSecond);
+    }
+
+    ReplicationLagProbe getReplicationLagProbe() {
+        return replicationLagProbe;
+    }
+
+    long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    void setReplicationLagProbe(ReplicationLagProbe replicationLagProbe, long maxLagMillis) {
+        this.replicationLagProbe = replicationLagProbe;
+        this.maxLagMillis = Math.max(0, maxLagMillis);
+    }
+
+    long getMaxLagWaitMillis() {
+        return maxLagWaitMillis;
+    }
+
+    void setMaxLagWaitMillis(long maxLagWaitMillis) {
+        this.maxLagWaitMillis = Math.max(0, maxLagWaitMillis);
+    }
+
+    /**
+     * Sleep and count the throttled time.
+     *
+     * @param millis milliseconds to sleep, nothing to do when not positive
+     * @throws InterruptedException when interrupted
+     * @since 2.7
+     */
+    private void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+            throttledMillis += millis;
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A logical table split into monthly physical tables by the {@code create_time} column,
+ * the physical table is named by the base table name and the month, such as {@code test_202610}.</p>
+ * <p>The {@code create_time} column should be the epoch seconds of int type in mysql({@link Integer} type in java),
+ * and the base table is the template of the monthly tables, see {@link PartitionDao}.</p>
+ *
+ * @since 2.7
+ */
+public class TimePartition {
+
+    /**
+     * Formatter of the month suffix of the physical table name.
+     *
+     * @since 2.7
+     */
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * The base table name, same as {@link BaseBean#tableName()}.
+     *
+     * @since 2.7
+     */
+    private final String baseTableName;
+
+    /**
+     * The time zone to split the months.
+     *
+     * @since 2.7
+     */
+    private final ZoneId zoneId;
+
+    /**
+     * Create a monthly partition.
+     *
+     * @param baseTableName the base table name, same as {@link BaseBean#tableName()}
+     * @param zoneId        the time zone to split the months
+     * @since 2.7
+     */
+    public TimePartition(String baseTableName, ZoneId zoneId) {
+        if (baseTableName == null || zoneId == null) {
+            throw new RuntimeException("base table name and zone id must not null");
+        }
+        this.baseTableName = baseTableName;
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Get the base table name.
+     *
+     * @return the base table name
+     * @since 2.7
+     */
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    /**
+     * Get the month of the given time.
+     *
+     * @param createTime epoch seconds
+     * @return the month
+     * @since 2.7
+     */
+    public YearMonth getMonth(long createTime) {
+        return YearMonth.from(Instant.ofEpochSecond(createTime).atZone(zoneId));
+    }
+
+    /**
+     * Get the physical table name of the given time.
+     *
+     * @param createTime epoch seconds
+     * @return the physical table name
+     * @since 2.7
+     */
+    public String getTableName(long createTime) {
+        return getTableName(getMonth(createTime));
+    }
+
+    /**
+     * Get the physical table name of the given month.
+     *
+     * @param month the month
+     * @return the physical table name
+     * @since 2.7
+     */
+    public String getTableName(YearMonth month) {
+        return baseTableName + "_" + month.format(SUFFIX_FORMATTER);
+    }
+
+    /**
+     * Get the physical table names covered by the given time range, the others are pruned.
+     *
+     * @param startTime start epoch seconds, inclusive
+     * @param endTime   end epoch seconds, inclusive
+     * @return the physical table names in ascending order of month, empty when the start is after the end
+     * @since 2.7
+     */
+    public List<String> getTableNameList(long startTime, long endTime) {
+        List<String> tableNameList = new ArrayList<String>();
+        if (startTime <= endTime) {
+            YearMonth endMonth = getMonth(endTime);
+            for (YearMonth month = getMonth(startTime); !month.isAfter(endMonth); month = month.plusMonths(1)) {
+                tableNameList.add(getTableName(month));
+            }
+        }
+        return tableNameList;
+    }
+
+    @Override
+    public String toString() {
+        return "TimePartition{" +
+                "baseTableName='" + baseTableName + '\'' +
+                ", zoneId=" + zoneId +
+                '}';
+    }
+
+}
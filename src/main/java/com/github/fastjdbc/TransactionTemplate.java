@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A template to run a unit of work in a transaction of master pool and retry it when a transient error occurred.</p>
+ * <p>The work is committed when finished. When it failed by deadlock(mysql error 1213), lock wait timeout
+ * (mysql error 1205) or serialization failure(SQLState 40001), the transaction is rolled back and the work
+ * is run again after a jittered exponential backoff, until success, max attempts reached or the time budget used up.</p>
+ * <pre>{@code
+ * int count = new TransactionTemplate().setMaxAttempts(5).execute(() -> TestDao.updateTableById(bean, false));
+ * }</pre>
+ * <p>Note: current thread should have no connection when execute, because the work must be run in a new transaction.</p>
+ *
+ * @since 2.7
+ */
+public class TransactionTemplate {
+
+    /**
+     * The logger facade.
+     *
+     * @since 2.7
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionTemplate.class);
+
+    /**
+     * Mysql error code of deadlock.
+     *
+     * @since 2.7
+     */
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    /**
+     * Mysql error code of lock wait timeout.
+     *
+     * @since 2.7
+     */
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /**
+     * SQLState of serialization failure.
+     *
+     * @since 2.7
+     */
+    private static final String SERIALIZATION_FAILURE = "40001";
+
+    /**
+     * Count of all the retries.
+     *
+     * @since 2.7
+     */
+    private static final LongAdder RETRY_COUNT = new LongAdder();
+
+    /**
+     * Count of the works which succeeded after retry.
+     *
+     * @since 2.7
+     */
+    private static final LongAdder RECOVERED_COUNT = new LongAdder();
+
+    /**
+     * Count of the works which failed by retryable error after all the retries.
+     *
+     * @since 2.7
+     */
+    private static final LongAdder EXHAUSTED_COUNT = new LongAdder();
+
+    /**
+     * Max attempts of the work.
+     *
+     * @since 2.7
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Backoff delay before the first retry in milliseconds, doubled for each retry.
+     *
+     * @since 2.7
+     */
+    private long baseDelayMillis = 20;
+
+    /**
+     * Max backoff delay in milliseconds.
+     *
+     * @since 2.7
+     */
+    private long maxDelayMillis = 1000;
+
+    /**
+     * Max time from the first attempt to the last retry in milliseconds.
+     *
+     * @since 2.7
+     */
+    private long timeBudgetMillis = 5000;
+
+    /**
+     * Whether to retry when {@link OptimisticLockException} thrown.
+     *
+     * @since 2.7
+     */
+    private boolean retryOnConflict;
+
+    /**
+     * Run the unit of work in a transaction of master pool and retry it when a retryable error occurred.
+     *
+     * @param callable the unit of work
+     * @param <R>      the result type
+     * @return the result of the work
+     * @throws Exception the exception of the last attempt
+     * @see #isRetryable(Throwable, boolean)
+     * @since 2.7
+     */
+    public <R> R execute(SqlCallable<R> callable) throws Exception {
+        long start = System.currentTimeMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                R result = ConnectionPool.callInConnection(null, callable);
+                if (attempt > 1) {
+                    RECOVERED_COUNT.increment();
+                }
+                return result;
+            } catch (Exception e) {
+                if (!isRetryable(e, retryOnConflict)) {
+                    throw e;
+                }
+                long delay = ThreadLocalRandom.current().nextLong(Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30)) + 1);
+                if (attempt >= maxAttempts || System.currentTimeMillis() - start + delay > timeBudgetMillis) {
+                    EXHAUSTED_COUNT.increment();
+                    throw e;
+                }
+                RETRY_COUNT.increment();
+                LOGGER.warn("Transaction failed by retryable error, retry attempt {} after {}ms: {}", attempt, delay, e.getMessage());
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * <p>Whether the exception or its causes is a retryable error:
+     * deadlock, lock wait timeout, serialization failure, or optimistic lock conflict when required.</p>
+     *
+     * @param e               the exception
+     * @param retryOnConflict whether {@link OptimisticLockException} is retryable
+     * @return true when retryable
+     * @since 2.7
+     */
+    public static boolean isRetryable(Throwable e, boolean retryOnConflict) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException) {
+                return retryOnConflict;
+            }
+            for (SQLException se = cause instanceof SQLException ? (SQLException) cause : null; se != null; se = se.getNextException()) {
+                if (se instanceof SQLTransactionRollbackException
+                        || se.getErrorCode() == ER_LOCK_DEADLOCK
+                        || se.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                        || SERIALIZATION_FAILURE.equals(se.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the count of all the retries.
+     *
+     * @return count of retries
+     * @since 2.7
+     */
+    public static long getRetryCount() {
+        return RETRY_COUNT.sum();
+    }
+
+    /**
+     * Get the count of the works which succeeded after retry.
+     *
+     * @return count of recovered works
+     * @since 2.7
+     */
+    public static long getRecoveredCount() {
+        return RECOVERED_COUNT.sum();
+    }
+
+    /**
+     * Get the count of the works which failed by retryable error after all the retries.
+     *
+     * @return count of exhausted works
+     * @since 2.7
+     */
+    public static long getExhaustedCount() {
+        return EXHAUSTED_COUNT.sum();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public TransactionTemplate setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public TransactionTemplate setBaseDelayMillis(long baseDelayMillis) {
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        return this;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public TransactionTemplate setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        return this;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public TransactionTemplate setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    public boolean isRetryOnConflict() {
+        return retryOnConflict;
+    }
+
+    public TransactionTemplate setRetryOnConflict(boolean retryOnConflict) {
+        this.retryOnConflict = retryOnConflict;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionTemplate{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseDelayMillis=" + baseDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                ", retryOnConflict=" + retryOnConflict +
+                '}';
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 fastjdbc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.fastjdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A write-behind buffer which merges the updates by id in the transaction of current thread.</p>
+ * <p>After {@link #enable()} called, the updates by {@link #updateTableById(BaseBean, boolean)} are not executed
+ * at once but merged by table and id, the pending updates of a table are executed by JDBC batch
+ * before any statement of {@link BaseDao} which contains the table name, and all the pending updates are executed
+ * before commit in {@link ConnectionPool#close()}. {@link ConnectionPool#rollback()} discards the pending updates.</p>
+ * <pre>{@code
+ * ConnectionPool.getConnection(null);
+ * WriteBuffer.enable();
+ * WriteBuffer.updateTableById(new Test().setId(1).setRemark("a"), false);
+ * WriteBuffer.updateTableById(new Test().setId(1).setTestName("b"), false);
+ * ConnectionPool.close(); // one statement: UPDATE test SET remark = ?, test_name = ? WHERE id = ?
+ * }</pre>
+ * <p>The bean with a not null {@code version} is not buffered but updated at once by
+ * {@link BaseDao#updateTableById(BaseBean, boolean)}, so a stale version still fails with
+ * {@link OptimisticLockException} at the call.</p>
+ * <p>Note: the statements executed by the connection directly are not aware of the buffer,
+ * call {@link #flush()} before them. The count of the buffered updates is not known until flushed,
+ * so the updates return nothing, query the rows after flush when the count matters.</p>
+ *
+ * @since 2.7
+ */
+public class WriteBuffer {
+
+    /**
+     * Pending updates of each thread, key is table name, value is map of column map by id.
+     *
+     * @since 2.7
+     */
+    private static final ThreadLocal<Map<String, Map<Object, Map<String, Object>>>> BUFFER = new ThreadLocal<Map<String, Map<Object, Map<String, Object>>>>();
+
+    /**
+     * Enable the buffer for the connection of current thread, the buffer is disabled when the connection closed.
+     *
+     * @throws SQLException exception when check the connection
+     * @since 2.7
+     */
+    public static void enable() throws SQLException {
+        Connection connection = ConnectionPool.CONNECTION_POOL.get();
+        if (connection == null || connection.isClosed() || connection.isReadOnly()) {
+            throw new RuntimeException("connection object must not null and not closed and not read only");
+        }
+        if (BUFFER.get() == null) {
+            BUFFER.set(new LinkedHashMap<String, Map<Object, Map<String, Object>>>());
+        }
+    }
+
+    /**
+     * Whether the buffer is enabled for current thread.
+     *
+     * @return true when enabled
+     * @since 2.7
+     */
+    public static boolean isEnabled() {
+        return BUFFER.get() != null;
+    }
+
+    /**
+     * Update the properties of bean by the primary key of bean, the update is merged with the pending updates
+     * of the same id when the buffer is enabled, otherwise it's executed at once. The bean with a not null
+     * {@code version} is always updated at once with optimistic lock.
+     *
+     * @param bean bean to update
+     * @param all  true to update all column of bean, false to update not null column of bean
+     * @param <T>  {@link BaseBean} type class
+     * @throws SQLException exception when update failed
+     * @throws OptimisticLockException when the bean has a not null version and no row updated
+     * @see BaseDao#updateTableById(BaseBean, boolean)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseBean> void updateTableById(T bean, boolean all) throws SQLException {
+        Map<String, Map<Object, Map<String, Object>>> buffer = BUFFER.get();
+        Map<String, Object> columnMap = bean.columnMap(all);
+        if (buffer == null || columnMap.get("version") != null) {
+            // the update flushes the pending updates of the table first, so the order of the updates is kept
+            BaseDao.updateTableById(bean, all);
+            return;
+        }
+        Object id = columnMap.get("id");
+        if (id == null) {
+            throw new RuntimeException("id must not null");
+        }
+        Map<String, Object> pendingMap = buffer.computeIfAbsent(bean.tableName(), k -> new LinkedHashMap<Object, Map<String, Object>>())
+                .computeIfAbsent(id, k -> new HashMap<String, Object>());
+        pendingMap.putAll(columnMap);
+    }
+
+    /**
+     * Execute all the pending updates of current thread.
+     *
+     * @throws SQLException exception when update failed
+     * @since 2.7
+     */
+    public static void flush() throws SQLException {
+        Map<String, Map<Object, Map<String, Object>>> buffer = BUFFER.get();
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Map<Object, Map<String, Object>>>> entryList = new ArrayList<Map.Entry<String, Map<Object, Map<String, Object>>>>(buffer.entrySet());
+        buffer.clear();
+        for (Map.Entry<String, Map<Object, Map<String, Object>>> entry : entryList) {
+            BaseDao.batchUpdateTableById(entry.getKey(), new ArrayList<Map<String, Object>>(entry.getValue().values()));
+        }
+    }
+
+    /**
+     * Execute the pending updates of the tables which are contained in the given sql.
+     *
+     * @param sql the sql to execute
+     * @throws SQLException exception when update failed
+     * @since 2.7
+     */
+    static void flush(String sql) throws SQLException {
+        Map<String, Map<Object, Map<String, Object>>> buffer = BUFFER.get();
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<String, Map<Object, Map<String, Object>>>> iterator = buffer.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Map<Object, Map<String, Object>>> entry = iterator.next();
+            if (containsTable(sql, entry.getKey())) {
+                iterator.remove();
+                BaseDao.batchUpdateTableById(entry.getKey(), new ArrayList<Map<String, Object>>(entry.getValue().values()));
+                iterator = buffer.entrySet().iterator();
+            }
+        }
+    }
+
+    /**
+     * Discard the pending updates and disable the buffer of current thread.
+     *
+     * @since 2.7
+     */
+    static void discard() {
+        BUFFER.remove();
+    }
+
+    /**
+     * Whether the sql contains the table name as a whole word.
+     *
+     * @param sql       the sql
+     * @param tableName table name
+     * @return true when contains
+     * @since 2.7
+     */
+    private static boolean containsTable(String sql, String tableName) {
+        int index = sql.indexOf(tableName);
+        while (index >= 0) {
+            int end = index + tableName.length();
+            if ((index == 0 || !isNamePart(sql.charAt(index - 1))) && (end == sql.length() || !isNamePart(sql.charAt(end)))) {
+                return true;
+            }
+            index = sql.indexOf(tableName, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Whether the char can be a part of table name.
+     *
+     * @param c the char
+     * @return true when it can be a part of table name
+     * @since 2.7
+     */
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+}
@@ -16,7 +16,8 @@
 
 package com.github.fastjdbc.test.bean;
 
-import com.github.fastjdbc.BaseBean;
+import com.github.fastjdbc.ChangeTrackingBean;
+import com.github.fastjdbc.GidCodec;
 
 import java.math.BigDecimal;
 import java.sql.ResultSet;
@@ -24,7 +25,7 @@ import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
-public class Test implements BaseBean<Test> {
+public class Test extends ChangeTrackingBean<Test> {
 
     // 主键
     private Integer id;
@@ -44,6 +45,8 @@ public class Test implements BaseBean<Test> {
     private String testName;
     // 测试字典(0:字典0,1:字典1,2:字典2)
     private Integer testDictionary;
+    // 版本号
+    private Integer version;
 
     public Integer getId() {
         return id;
@@ -126,6 +129,15 @@ public class Test implements BaseBean<Test> {
         return this;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Test setVersion(Integer version) {
+        this.version = version;
+        return this;
+    }
+
     @Override
     public String tableName() {
         return "test";
@@ -133,7 +145,7 @@ public class Test implements BaseBean<Test> {
 
     @Override
     public Map<String, Object> columnMap(boolean all) {
-        Map<String, Object> map = new HashMap<String, Object>(9);
+        Map<String, Object> map = new HashMap<String, Object>(10);
         if (all || this.getId() != null) {
             map.put("id", this.getId());
         }
@@ -161,6 +173,9 @@ public class Test implements BaseBean<Test> {
         if (all || this.getTestDictionary() != null) {
             map.put("test_dictionary", this.getTestDictionary());
         }
+        if (all || this.getVersion() != null) {
+            map.put("version", this.getVersion());
+        }
         return map;
     }
 
@@ -168,14 +183,15 @@ public class Test implements BaseBean<Test> {
     public Test beanFromResultSet(ResultSet rs) throws SQLException {
         return new Test()
                 .setId(rs.getInt("id"))
-                .setGid(rs.getString("gid"))
+                .setGid(GidCodec.getGid(rs, "gid"))
                 .setCreateTime(rs.getInt("create_time"))
                 .setUpdateTime(rs.getInt("update_time"))
                 .setIsValid(rs.getInt("is_valid"))
                 .setMoney(rs.getBigDecimal("money"))
                 .setRemark(rs.getString("remark"))
                 .setTestName(rs.getString("test_name"))
-                .setTestDictionary(rs.getInt("test_dictionary"));
+                .setTestDictionary(rs.getInt("test_dictionary"))
+                .setVersion(rs.getInt("version"));
     }
 
     @Override
@@ -190,6 +206,7 @@ public class Test implements BaseBean<Test> {
                 ", remark='" + remark + '\'' +
                 ", testName='" + testName + '\'' +
                 ", testDictionary=" + testDictionary +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
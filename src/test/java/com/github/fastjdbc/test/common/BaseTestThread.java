@@ -20,6 +20,7 @@ import com.github.fastjdbc.ConnectionPool;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import javax.sql.DataSource;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -28,6 +29,8 @@ import java.util.Properties;
 
 public class BaseTestThread implements Runnable, ServiceContainer {
 
+    protected static DataSource MASTER_POOL;
+
     static {
         String path = BaseTestThread.class.getResource("/").getPath() + "db.properties";
         File file = new File(path);
@@ -37,6 +40,7 @@ public class BaseTestThread implements Runnable, ServiceContainer {
             HikariConfig config = new HikariConfig(properties);
             HikariDataSource masterPool = new HikariDataSource(config);
             ConnectionPool.init(masterPool, null);
+            MASTER_POOL = masterPool;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -16,14 +16,26 @@
 
 package com.github.fastjdbc.test.executor;
 
+import com.github.fastjdbc.ArchiveDao;
+import com.github.fastjdbc.ConnectionPool;
+import com.github.fastjdbc.FileScanCheckpoint;
+import com.github.fastjdbc.TableArchiver;
+import com.github.fastjdbc.TablePurger;
 import com.github.fastjdbc.test.bean.Test;
 import com.github.fastjdbc.test.common.BaseTestThread;
 import com.github.fastjdbc.test.dao.TestDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLTimeoutException;
 import java.util.List;
 
 public class DeleteTestThread extends BaseTestThread {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeleteTestThread.class);
+
     @Override
     protected void test() throws Exception {
         TestDao.softDeleteTableById(new Test().setId(1));
@@ -40,6 +52,46 @@ public class DeleteTestThread extends BaseTestThread {
         Test test11 = TestDao.selectTableById(new Test().setId(11));
         Test test12 = TestDao.selectTableById(new Test().setId(12));
         TestDao.deleteTableByGidList(List.of(test11.getGid(), test12.getGid()));
+        softDeleteByPurger();
+        archiveSoftDeleted();
+    }
+
+    private void softDeleteByPurger() throws Exception {
+        // the purger commits each chunk with its own connection, so commit and release the connection of this thread first
+        ConnectionPool.close();
+        try {
+            TablePurger purger = new TablePurger().setChunkSize(2).setMaxRowsPerSecond(100)
+                    .setReplicationLagProbe(() -> 0L, 1000);
+            long count = purger.softDeleteTableByIdList(new Test(), List.of(13, 14, 15, 16));
+            LOGGER.info("Soft delete by purger count = {}, chunk count = {}, throttled {}ms", count, purger.getChunkCount(), purger.getThrottledMillis());
+            // a stopped replication never recovers, the purge fails after the max lag wait time
+            TablePurger stoppedPurger = new TablePurger().setReplicationLagProbe(() -> Long.MAX_VALUE, 1000).setMaxLagWaitMillis(1000);
+            try {
+                stoppedPurger.deleteTableByIdList(new Test(), List.of(17));
+            } catch (SQLTimeoutException e) {
+                LOGGER.info("Purge with stopped replication failed: {}", e.getMessage());
+            }
+        } finally {
+            ConnectionPool.getConnection(null);
+        }
+    }
+
+    private void archiveSoftDeleted() throws Exception {
+        // the archiver commits each chunk with its own connection, so commit and release the connection of this thread first
+        ConnectionPool.close();
+        try {
+            Path checkpointPath = Files.createTempFile("fastjdbc-archive-", ".checkpoint");
+            TableArchiver archiver = new TableArchiver().setChunkSize(100).setCheckpoint(new FileScanCheckpoint(checkpointPath));
+            long count = archiver.archiveTable(new Test(), System.currentTimeMillis() / 1000 + 1);
+            LOGGER.info("Archive soft deleted count = {}, chunk count = {}, checkpoint deleted = {}", count, archiver.getChunkCount(), Files.notExists(checkpointPath));
+        } finally {
+            ConnectionPool.getConnection(null);
+        }
+        // the soft deleted row 13 is moved to the archive table, found only when the archive is included
+        Test test = ArchiveDao.selectTableById(new Test().setId(13), false);
+        Test archivedTest = ArchiveDao.selectTableById(new Test().setId(13), true);
+        int archivedCount = ArchiveDao.countTableByBean(new Test().setIsValid(0), true);
+        LOGGER.info("Select archived test = {}, without archive = {}, soft deleted count with archive = {}", archivedTest, test, archivedCount);
     }
 
 }
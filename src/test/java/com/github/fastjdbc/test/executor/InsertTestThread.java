@@ -16,6 +16,15 @@
 
 package com.github.fastjdbc.test.executor;
 
+import com.github.fastjdbc.BulkLoader;
+import com.github.fastjdbc.GidGenerator;
+import com.github.fastjdbc.PageBean;
+import com.github.fastjdbc.PartitionDao;
+import com.github.fastjdbc.Shard;
+import com.github.fastjdbc.ShardDao;
+import com.github.fastjdbc.ShardRouter;
+import com.github.fastjdbc.ShardStrategy;
+import com.github.fastjdbc.TimePartition;
 import com.github.fastjdbc.test.bean.Test;
 import com.github.fastjdbc.test.common.BaseTestThread;
 import com.github.fastjdbc.test.dao.TestDao;
@@ -23,9 +32,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 
 public class InsertTestThread extends BaseTestThread {
 
@@ -36,6 +47,9 @@ public class InsertTestThread extends BaseTestThread {
         insertOne();
         insertOneReturnId();
         batchInsertTable();
+        bulkLoadTable();
+        insertIntoShard();
+        insertIntoPartition();
     }
 
     private void insertOne() throws Exception {
@@ -59,13 +73,73 @@ public class InsertTestThread extends BaseTestThread {
         TestDao.batchInsertIntoTable(list);
     }
 
+    private void bulkLoadTable() throws Exception {
+        List<Test> checkList = new ArrayList<Test>(2);
+        Iterator<Test> iterator = new Iterator<Test>() {
+
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < 10000;
+            }
+
+            @Override
+            public Test next() {
+                i++;
+                Test test = initTest().setTestName("bulkLoadTable" + i).setTestDictionary(2).setRemark(i % 2 == 0 ? null : "tab\tline\nslash\\中文" + i);
+                if (i <= 2) {
+                    checkList.add(test);
+                }
+                return test;
+            }
+        };
+        int count = BulkLoader.loadIntoTable(new Test(), iterator);
+        // the escaped values, null and gid should be loaded as they are
+        for (Test expected : checkList) {
+            Test test = TestDao.selectTableByGid(new Test().setGid(expected.getGid()));
+            if (test == null || !Objects.equals(expected.getRemark(), test.getRemark())) {
+                throw new IllegalStateException("Bulk load round trip failed, expected = " + expected + ", actual = " + test);
+            }
+        }
+        LOGGER.info("Bulk load table count = {}, round trip checked", count);
+    }
+
+    private void insertIntoShard() throws Exception {
+        // a single shard on the master pool, a real deployment has one shard for each database
+        ShardRouter.init(List.of(new Shard(MASTER_POOL, null)), ShardStrategy.hash());
+        List<Test> list = new ArrayList<Test>(10);
+        for (int i = 0; i < 10; i++) {
+            list.add(initTest().setTestName("insertIntoShard" + i).setTestDictionary(2));
+        }
+        int count = ShardDao.batchInsertIntoTable(list);
+        Test test = ShardDao.selectTableByGid(new Test().setGid(list.get(0).getGid()));
+        LOGGER.info("Insert into shard count = {}, select by gid from shard {} test = {}", count, ShardRouter.getShardIndex(test.getGid()), test);
+    }
+
+    private void insertIntoPartition() throws Exception {
+        TimePartition partition = new TimePartition("test", ZoneId.systemDefault());
+        long now = System.currentTimeMillis() / 1000;
+        PartitionDao.createPartitionIfAbsent(partition, partition.getMonth(now));
+        PartitionDao.createPartitionIfAbsent(partition, partition.getMonth(now).minusMonths(1));
+        List<Test> list = new ArrayList<Test>(10);
+        for (int i = 0; i < 10; i++) {
+            list.add(initTest().setTestName("insertIntoPartition" + i).setTestDictionary(2));
+        }
+        int count = PartitionDao.batchInsertIntoTable(partition, list);
+        long start = partition.getMonth(now).minusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        PageBean<Test> pageBean = PartitionDao.selectTableForPage(partition, new Test().setTestDictionary(2), start, now, 1, 5);
+        LOGGER.info("Insert into partition {} count = {}, select partition page = {}", partition.getTableName(now), count, pageBean);
+    }
+
     private Test initTest() {
         return new Test()
                 .setCreateTime((int) (System.currentTimeMillis() / 1000))
                 .setUpdateTime((int) (System.currentTimeMillis() / 1000))
-                .setGid(UUID.randomUUID().toString())
+                .setGid(GidGenerator.nextGid())
                 .setIsValid(1)
                 .setMoney(BigDecimal.TEN)
-                .setRemark("test remark");
+                .setRemark("test remark")
+                .setVersion(0);
     }
 }
@@ -16,7 +16,17 @@
 
 package com.github.fastjdbc.test.executor;
 
+import com.github.fastjdbc.AsyncDao;
+import com.github.fastjdbc.BatchLoader;
+import com.github.fastjdbc.CachedTable;
+import com.github.fastjdbc.ConnectionPool;
+import com.github.fastjdbc.FileScanCheckpoint;
+import com.github.fastjdbc.HedgedRead;
 import com.github.fastjdbc.PageBean;
+import com.github.fastjdbc.QueryBatch;
+import com.github.fastjdbc.QueryDetector;
+import com.github.fastjdbc.QueryTimeout;
+import com.github.fastjdbc.TableScanner;
 import com.github.fastjdbc.test.bean.Test;
 import com.github.fastjdbc.test.common.BaseTestThread;
 import com.github.fastjdbc.test.dao.TestDao;
@@ -25,10 +35,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class SelectTestThread extends BaseTestThread {
 
@@ -54,6 +69,17 @@ public class SelectTestThread extends BaseTestThread {
         executeSelectReturnIntegerList();
         executeSelectReturnLongList();
         executeSelectReturnBigDecimalList();
+        selectAsync();
+        selectBatch();
+        selectByLoader();
+        selectProjectionForPage();
+        selectWithTimeout();
+        selectHedged();
+        selectAfterId();
+        selectWithBulkhead();
+        selectByCachedTable();
+        selectByScanner();
+        selectWithDetector();
     }
 
     private void selectById() throws Exception {
@@ -169,4 +195,140 @@ public class SelectTestThread extends BaseTestThread {
         List<BigDecimal> moneyList = TestDao.selectMoneyByIdList(List.of(1, 2, 3, 4, 5));
         LOGGER.info("execute select return BigDecimal list = {}", moneyList);
     }
+
+    private void selectAsync() throws Exception {
+        CompletableFuture<Test> testFuture = AsyncDao.selectTableById(null, new Test().setId(1));
+        CompletableFuture<String> testNameFuture = AsyncDao.supplyAsync(null, () -> TestDao.selectTestNameById(2));
+        LOGGER.info("Select async test = {}, testName = {}", testFuture.get(), testNameFuture.get());
+    }
+
+    private void selectBatch() throws Exception {
+        QueryBatch batch = new QueryBatch();
+        CompletableFuture<Test> testFuture = batch.add(() -> TestDao.selectTableById(new Test().setId(1)));
+        CompletableFuture<List<Test>> testListFuture = batch.add(() -> TestDao.selectTableByIdList(List.of(3, 4)));
+        CompletableFuture<BigDecimal> moneyFuture = batch.add(() -> TestDao.selectMoneyById(1));
+        batch.execute();
+        LOGGER.info("Select batch test = {}, test list = {}, money = {}", testFuture.get(), testListFuture.get(), moneyFuture.get());
+    }
+
+    private void selectByLoader() throws Exception {
+        BatchLoader loader = new BatchLoader();
+        List<Integer> idList = List.of(1, 2, 3, 2, 1);
+        for (Integer id : idList) {
+            loader.load(new Test(), id);
+        }
+        List<Test> testList = new ArrayList<Test>(idList.size());
+        for (Integer id : idList) {
+            testList.add(loader.get(new Test(), id));
+        }
+        LOGGER.info("Select by loader test list = {}, saved query count = {}", testList, loader.getSavedQueryCount());
+    }
+
+    private void selectProjectionForPage() throws Exception {
+        Test bean = new Test();
+        bean.setIsValid(1);
+        PageBean<Test> pageBean = TestDao.selectTableForPage(bean, 1, 10, List.of("id", "test_name"),
+                rs -> new Test().setId(rs.getInt("id")).setTestName(rs.getString("test_name")));
+        LOGGER.info("Select projection for page pageBean = {}", pageBean);
+    }
+
+    private void selectWithTimeout() throws Exception {
+        List<Test> testList = QueryTimeout.call(1000, TestDao::selectAllTable);
+        LOGGER.info("Select with timeout test list = {}", testList);
+    }
+
+    private void selectHedged() throws Exception {
+        HedgedRead hedgedRead = new HedgedRead(0.95, 1000);
+        Test test = hedgedRead.call(() -> TestDao.selectTableById(new Test().setId(1)));
+        LOGGER.info("Select hedged test = {}, hedged count = {}", test, hedgedRead.getHedgedCount());
+    }
+
+    private void selectAfterId() throws Exception {
+        List<Test> testList = TestDao.selectTableAfterId(new Test().setIsValid(1), 2, 3);
+        List<Test> testByArrayList = TestDao.selectTableByIdList(new Test(), new long[]{3, 4});
+        LOGGER.info("Select after id test list = {}, select by id array test list = {}", testList, testByArrayList);
+    }
+
+    private void selectWithBulkhead() throws Exception {
+        ConnectionPool.setBulkhead(null, 20, 100, 1000);
+        List<CompletableFuture<Test>> futureList = new ArrayList<CompletableFuture<Test>>(50);
+        for (int i = 0; i < 50; i++) {
+            futureList.add(AsyncDao.selectTableById(null, new Test().setId(i + 1)));
+        }
+        CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).get();
+        LOGGER.info("Select with bulkhead = {}", ConnectionPool.getBulkhead(null));
+    }
+
+    private void selectByCachedTable() throws Exception {
+        CachedTable<Test> cachedTable = new CachedTable<Test>(new Test(), null, List.of("test_dictionary"));
+        // load in another thread, as the current thread already has a connection
+        CompletableFuture.runAsync(() -> {
+            try {
+                CachedTable.register(cachedTable);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).get();
+        // the reads of BaseDao are answered by the cached table only in a read only connection
+        ConnectionPool.close();
+        ConnectionPool.getConnection("slave");
+        try {
+            List<Test> testList = TestDao.selectTableByBean(new Test().setTestDictionary(1));
+            Test test = TestDao.selectTableById(new Test().setId(1));
+            if (test != null) {
+                // the returned bean is a copy, modifying it doesn't change the cached row
+                String testName = test.getTestName();
+                test.setTestName("selectByCachedTable changed");
+                if (!Objects.equals(testName, TestDao.selectTableById(new Test().setId(1)).getTestName())) {
+                    throw new IllegalStateException("Cached table row is modified by the caller");
+                }
+                // the strings are compared case insensitive same as the collation of the column
+                if (testName != null && TestDao.selectTableByBean(new Test().setTestName(testName.toUpperCase())).isEmpty()) {
+                    throw new IllegalStateException("Cached table doesn't match the test name case insensitive");
+                }
+            }
+            LOGGER.info("Select by cached table test = {}, test list size = {}, load count = {}", test, testList.size(), cachedTable.getLoadCount());
+        } finally {
+            CachedTable.unregister(new Test().tableName());
+            ConnectionPool.close();
+            ConnectionPool.getConnection(null);
+        }
+    }
+
+    private void selectByScanner() throws Exception {
+        Path checkpointPath = Files.createTempFile("fastjdbc-scan-", ".checkpoint");
+        FileScanCheckpoint checkpoint = new FileScanCheckpoint(checkpointPath);
+        TableScanner tableScanner = new TableScanner(null).setChunkSize(2).setParallelism(2).setCheckpoint(checkpoint);
+        long rowCount = tableScanner.scan(new Test().setIsValid(1),
+                (startId, endId, testList) -> LOGGER.info("Scan test id [{}, {}) list = {}", startId, endId, testList));
+        // the completed chunks read from the checkpoint file are skipped when scan again
+        FileScanCheckpoint resumedCheckpoint = new FileScanCheckpoint(checkpointPath);
+        tableScanner.setCheckpoint(resumedCheckpoint).scan(new Test().setIsValid(1), (startId, endId, testList) -> {});
+        LOGGER.info("Select by scanner row count = {}, completed chunk count = {}, skipped chunk count = {}",
+                rowCount, resumedCheckpoint.getCompletedCount(), tableScanner.getSkippedChunkCount());
+        resumedCheckpoint.delete();
+    }
+
+    private void selectWithDetector() throws Exception {
+        // the detector tracks the connections got after it is enabled
+        ConnectionPool.close();
+        QueryDetector.enable(3);
+        ConnectionPool.getConnection(null);
+        try {
+            long detectedCount = QueryDetector.getDetectedCount();
+            // select by id one by one instead of by id list, a typical N+1 query
+            for (int i = 1; i <= 5; i++) {
+                TestDao.selectTableById(new Test().setId(i));
+            }
+            if (QueryDetector.getDetectedCount() != detectedCount + 1) {
+                throw new IllegalStateException("N+1 query isn't detected");
+            }
+            LOGGER.info("Select with detector detected map = {}", QueryDetector.getDetectedMap());
+        } finally {
+            QueryDetector.disable();
+            QueryDetector.reset();
+            ConnectionPool.close();
+            ConnectionPool.getConnection(null);
+        }
+    }
 }
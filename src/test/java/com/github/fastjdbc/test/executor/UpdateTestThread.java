@@ -16,17 +16,28 @@
 
 package com.github.fastjdbc.test.executor;
 
+import com.github.fastjdbc.ConnectionPool;
+import com.github.fastjdbc.CounterAggregator;
+import com.github.fastjdbc.GidGenerator;
+import com.github.fastjdbc.MergeResult;
+import com.github.fastjdbc.OptimisticLockException;
+import com.github.fastjdbc.TransactionTemplate;
+import com.github.fastjdbc.WriteBuffer;
 import com.github.fastjdbc.test.bean.Test;
 import com.github.fastjdbc.test.common.BaseTestThread;
 import com.github.fastjdbc.test.dao.TestDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UpdateTestThread extends BaseTestThread {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpdateTestThread.class);
+
     @Override
     protected void test() throws Exception {
         updateByIdForNotNullColumn();
@@ -38,6 +49,14 @@ public class UpdateTestThread extends BaseTestThread {
         updateByParamInsertWhenNotExist();
         updateByIdList();
         updateByGidList();
+        updateChangedById();
+        batchUpdateById();
+        updateByWriteBuffer();
+        incrementById();
+        incrementByAggregator();
+        updateByTransactionTemplate();
+        updateWithOptimisticLock();
+        mergeByGid();
     }
 
     private void updateByIdForNotNullColumn() throws Exception {
@@ -56,7 +75,7 @@ public class UpdateTestThread extends BaseTestThread {
                 .setTestName("updateByIdForAllColumn testName")
                 .setMoney(BigDecimal.ONE)
                 .setIsValid(1)
-                .setGid(UUID.randomUUID().toString())
+                .setGid(GidGenerator.nextGid())
                 .setUpdateTime((int) (System.currentTimeMillis() / 1000))
                 .setCreateTime((int) (System.currentTimeMillis() / 1000))
                 .setTestDictionary(1);
@@ -97,7 +116,7 @@ public class UpdateTestThread extends BaseTestThread {
                 .setTestName("updateByParamInsertWhenNotExist testName")
                 .setMoney(BigDecimal.ZERO)
                 .setIsValid(0)
-                .setGid(UUID.randomUUID().toString())
+                .setGid(GidGenerator.nextGid())
                 .setUpdateTime((int) (System.currentTimeMillis() / 1000))
                 .setCreateTime((int) (System.currentTimeMillis() / 1000))
                 .setTestDictionary(0);
@@ -106,6 +125,7 @@ public class UpdateTestThread extends BaseTestThread {
 
     private void updateByIdList() throws Exception {
         TestDao.updateTableByIdList(new Test().setRemark("updateByIdList remark").setTestDictionary(0), List.of(5, 6, 7), false);
+        TestDao.updateTableByIdList(new Test().setRemark("updateByIdArray remark"), new long[]{5, 6, 7}, false);
     }
 
     private void updateByGidList() throws Exception {
@@ -117,4 +137,123 @@ public class UpdateTestThread extends BaseTestThread {
         TestDao.updateTableByGidList(new Test().setRemark("updateByGidList remark").setTestDictionary(1), gidList, false);
     }
 
+    private void updateChangedById() throws Exception {
+        Test test = TestDao.selectTableById(new Test().setId(11));
+        test.setRemark(null).setTestName("updateChangedById testName");
+        TestDao.updateTableChangedById(test);
+    }
+
+    private void batchUpdateById() throws Exception {
+        List<Test> testList = new ArrayList<Test>(3);
+        testList.add(new Test().setId(12).setRemark("batchUpdateById remark12"));
+        testList.add(new Test().setId(13).setRemark("batchUpdateById remark13"));
+        testList.add(new Test().setId(14).setTestName("batchUpdateById testName14"));
+        TestDao.batchUpdateTableById(testList, false);
+    }
+
+    private void updateByWriteBuffer() throws Exception {
+        WriteBuffer.enable();
+        WriteBuffer.updateTableById(new Test().setId(15).setRemark("updateByWriteBuffer remark"), false);
+        WriteBuffer.updateTableById(new Test().setId(15).setTestName("updateByWriteBuffer testName"), false);
+        Test test = TestDao.selectTableById(new Test().setId(15));
+        // the bean with version is not buffered, the stale version conflicts at once
+        try {
+            WriteBuffer.updateTableById(new Test().setId(15).setVersion(test.getVersion() - 1).setRemark("updateByWriteBuffer stale"), false);
+            throw new IllegalStateException("Buffered update with stale version is not rejected");
+        } catch (OptimisticLockException e) {
+            LOGGER.info("Write buffer update with stale version conflict: {}", e.getMessage());
+        }
+    }
+
+    private void incrementById() throws Exception {
+        TestDao.incrementTableById(new Test().setId(16), "money", 1);
+    }
+
+    private void incrementByAggregator() throws Exception {
+        CounterAggregator aggregator = new CounterAggregator();
+        aggregator.start(1000);
+        for (int i = 0; i < 100; i++) {
+            aggregator.increment(new Test(), "money", 17 + i % 2, 1);
+        }
+        aggregator.stop();
+    }
+
+    private void updateByTransactionTemplate() throws Exception {
+        // the template runs the work in its own transaction, so commit and release the connection of this thread first
+        ConnectionPool.close();
+        try {
+            TransactionTemplate template = new TransactionTemplate().setMaxAttempts(5).setRetryOnConflict(true);
+            int count = template.execute(() -> {
+                Test test = TestDao.selectTableById(new Test().setId(19));
+                return TestDao.updateTableById(test.setRemark("updateByTransactionTemplate remark"), false);
+            });
+            LOGGER.info("Update by transaction template count = {}, retry count = {}", count, TransactionTemplate.getRetryCount());
+        } finally {
+            ConnectionPool.getConnection(null);
+        }
+    }
+
+    private void updateWithOptimisticLock() throws Exception {
+        Test stale = TestDao.selectTableById(new Test().setId(20));
+        // the first update increases the version, the next ones from the same stale bean conflict
+        TestDao.updateTableById(stale.setRemark("updateWithOptimisticLock first"), false);
+        try {
+            TestDao.updateTableById(stale.setRemark("updateWithOptimisticLock second"), false);
+            throw new IllegalStateException("Update with stale version is not rejected");
+        } catch (OptimisticLockException e) {
+            LOGGER.info("Update with stale version conflict: {}", e.getMessage());
+        }
+        try {
+            TestDao.batchUpdateTableById(List.of(stale.setRemark("updateWithOptimisticLock batch")), true);
+            throw new IllegalStateException("Batch update with stale version is not rejected");
+        } catch (OptimisticLockException e) {
+            LOGGER.info("Batch update with stale version conflict: {}", e.getMessage());
+        }
+        // each attempt runs in its own transaction, so commit and release the connection of this thread first
+        ConnectionPool.close();
+        try {
+            AtomicInteger attempts = new AtomicInteger();
+            int count = TestDao.retryOnConflict(3, () -> {
+                // the first attempt updates the stale bean and conflicts, the retry loads the latest row
+                Test test = attempts.getAndIncrement() == 0 ? stale : TestDao.selectTableById(new Test().setId(20));
+                return TestDao.updateTableById(test.setRemark("updateWithOptimisticLock retried"), false);
+            });
+            LOGGER.info("Update with optimistic lock retried count = {}, attempts = {}", count, attempts.get());
+        } finally {
+            ConnectionPool.getConnection(null);
+        }
+    }
+
+    private void mergeByGid() throws Exception {
+        Test scope = new Test().setRemark("mergeByGid remark").setIsValid(1);
+        List<Test> testList = new ArrayList<Test>(3);
+        for (int i = 0; i < 3; i++) {
+            testList.add(new Test()
+                    .setRemark("mergeByGid remark")
+                    .setTestName("mergeByGid testName" + i)
+                    .setMoney(BigDecimal.ONE)
+                    .setIsValid(1)
+                    .setGid(GidGenerator.nextGid())
+                    .setUpdateTime((int) (System.currentTimeMillis() / 1000))
+                    .setCreateTime((int) (System.currentTimeMillis() / 1000))
+                    .setTestDictionary(2)
+                    .setVersion(0));
+        }
+        MergeResult result = TestDao.mergeTableByGid(scope, testList, false, true);
+        LOGGER.info("Merge by gid first result = {}", result);
+        testList.remove(0);
+        testList.get(0).setTestName("mergeByGid testName changed");
+        testList.add(new Test()
+                .setRemark("mergeByGid remark")
+                .setTestName("mergeByGid testName3")
+                .setIsValid(1)
+                .setGid(GidGenerator.nextGid())
+                .setUpdateTime((int) (System.currentTimeMillis() / 1000))
+                .setCreateTime((int) (System.currentTimeMillis() / 1000))
+                .setTestDictionary(2)
+                .setVersion(0));
+        result = TestDao.mergeTableByGid(scope, testList, false, true);
+        LOGGER.info("Merge by gid second result = {}", result);
+    }
+
 }
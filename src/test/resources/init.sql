@@ -2,6 +2,8 @@ CREATE DATABASE `automain`;
 
 USE `automain`;
 
+SET GLOBAL local_infile = 1;
+
 DROP TABLE IF EXISTS `test`;
 
 CREATE TABLE `test` (
@@ -14,6 +16,7 @@ CREATE TABLE `test` (
   `remark` varchar(256) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL COMMENT '备注',
   `test_name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL COMMENT '测试名称',
   `test_dictionary` int(11) NOT NULL DEFAULT '0' COMMENT '测试字典(0:字典0,1:字典1,2:字典2)',
+  `version` int(11) NOT NULL DEFAULT '0' COMMENT '版本号',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_gid` (`gid`),
   KEY `idx_create_time` (`create_time`)